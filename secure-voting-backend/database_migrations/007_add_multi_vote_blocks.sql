@@ -0,0 +1,29 @@
+-- Migration: Add multi-vote blocks with Merkle root
+-- Date: 2026-10-17
+-- Description: Blocks can carry many votes. Each vote is stored in block_vote_entries and the
+-- block header commits to them through merkle_root. Existing single-vote blocks keep merkle_root NULL,
+-- so their hashes are unchanged.
+
+-- Step 1: Add merkle_root column to blocks table
+ALTER TABLE `blocks`
+ADD COLUMN `merkle_root` varchar(64) DEFAULT NULL AFTER `nonce`;
+
+-- Step 2: Create block_vote_entries table
+CREATE TABLE IF NOT EXISTS `block_vote_entries` (
+  `entry_id` bigint NOT NULL AUTO_INCREMENT,
+  `block_height` int NOT NULL,
+  `entry_index` int NOT NULL,
+  `voter_id` varchar(50) NOT NULL,
+  `election_id` int DEFAULT NULL,
+  `election_name` varchar(255) DEFAULT NULL,
+  `leaf_hash` varchar(64) NOT NULL,
+  `stego_image_data` longblob,
+  `timestamp` bigint NOT NULL,
+  PRIMARY KEY (`entry_id`),
+  UNIQUE KEY `uk_vote_entries_voter_election` (`voter_id`, `election_id`),
+  KEY `idx_vote_entries_block` (`block_height`, `entry_index`)
+);
+
+-- Verify the changes
+DESCRIBE `blocks`;
+DESCRIBE `block_vote_entries`;
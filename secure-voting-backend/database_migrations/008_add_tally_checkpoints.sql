@@ -0,0 +1,23 @@
+-- Migration: Add incremental tally checkpoints
+-- Date: 2026-10-17
+-- Description: One row per election with the vote counts up to a block height, so a tally
+-- only decrypts the blocks above it. The index serves the per-election keyset scans
+-- (election_id = ? AND block_height > ? ORDER BY block_height).
+
+-- Step 1: Create tally_checkpoints table
+CREATE TABLE IF NOT EXISTS `tally_checkpoints` (
+  `election_id` int NOT NULL,
+  `last_block_height` int NOT NULL,
+  `last_block_hash` varchar(64) NOT NULL,
+  `counts` text NOT NULL,
+  `votes_counted` bigint NOT NULL,
+  `updated_at` bigint NOT NULL,
+  PRIMARY KEY (`election_id`)
+);
+
+-- Step 2: Index blocks for per-election scans in chain order
+CREATE INDEX `idx_blocks_election_height` ON `blocks` (`election_id`, `block_height`);
+
+-- Verify the changes
+DESCRIBE `tally_checkpoints`;
+SHOW INDEX FROM `blocks`;
@@ -0,0 +1,32 @@
+-- Migration: Add homomorphic tally tables
+-- Date: 2026-10-17
+-- Description: With tally.homomorphic.enabled, each vote also carries an EC-ElGamal encrypted
+-- one-hot candidate vector (homomorphic_ballots). The block sequencer adds every committed ballot
+-- into its election's running sum (homomorphic_tallies), which is the only thing a tally decrypts.
+
+-- Step 1: Create homomorphic_ballots table
+CREATE TABLE IF NOT EXISTS `homomorphic_ballots` (
+  `ballot_id` bigint NOT NULL AUTO_INCREMENT,
+  `block_height` int NOT NULL,
+  `entry_index` int NOT NULL,
+  `election_id` int NOT NULL,
+  `ballot` blob NOT NULL,
+  PRIMARY KEY (`ballot_id`),
+  UNIQUE KEY `uk_homomorphic_ballots_entry` (`block_height`, `entry_index`),
+  KEY `idx_homomorphic_ballots_election` (`election_id`, `block_height`)
+);
+
+-- Step 2: Create homomorphic_tallies table
+CREATE TABLE IF NOT EXISTS `homomorphic_tallies` (
+  `election_id` int NOT NULL,
+  `election_name` varchar(255) DEFAULT NULL,
+  `ciphertext` blob NOT NULL,
+  `ballots` bigint NOT NULL,
+  `last_block_height` int NOT NULL,
+  `updated_at` bigint NOT NULL,
+  PRIMARY KEY (`election_id`)
+);
+
+-- Verify the changes
+DESCRIBE `homomorphic_ballots`;
+DESCRIBE `homomorphic_tallies`;
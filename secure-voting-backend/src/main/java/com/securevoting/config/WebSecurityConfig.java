@@ -59,6 +59,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Cursor of the next page of the block listings
+        configuration.setExposedHeaders(Arrays.asList("X-Next-After-Height"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
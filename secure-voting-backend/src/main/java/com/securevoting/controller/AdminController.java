@@ -1,12 +1,22 @@
 package com.securevoting.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.securevoting.model.User;
+import com.securevoting.service.BlockService;
 import com.securevoting.service.BlockchainService;
+import com.securevoting.service.CryptoService;
+import com.securevoting.service.LiboqsCryptoService;
+import com.securevoting.service.MiningService;
+import com.securevoting.service.TallyCache;
+import com.securevoting.service.cipher.VoteCipherRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,14 +29,45 @@ public class AdminController {
     @Autowired
     private BlockchainService blockchainService;
 
+    @Autowired
+    private BlockService blockService;
+
+    @Autowired
+    private MiningService miningService;
+
+    @Autowired
+    private CryptoService cryptoService;
+
+    @Autowired
+    private LiboqsCryptoService liboqsCryptoService;
+
+    @Autowired
+    private VoteCipherRegistry voteCipherRegistry;
+
+    @Autowired
+    private TallyCache tallyCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping("/users")
     public List<User> getAllUsers() {
         return blockchainService.getAllUsers();
     }
 
     @GetMapping("/blockchain")
-    public ResponseEntity<?> getBlockchain() {
-        return ResponseEntity.ok(blockchainService.getBlockchain());
+    public ResponseEntity<?> getBlockchain(@RequestParam(defaultValue = "-1") int afterHeight,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(defaultValue = "true") boolean includeStego) {
+        int pageLimit = blockService.pageLimit(limit);
+        return BlockListing.page(blockchainService.getBlockchain(afterHeight, pageLimit, includeStego), pageLimit);
+    }
+
+    @GetMapping(value = "/blockchain/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBlockchain(@RequestParam(defaultValue = "-1") int afterHeight,
+                                                                  @RequestParam(defaultValue = "true") boolean includeStego) {
+        return BlockListing.ndjson(objectMapper,
+                sink -> blockchainService.streamBlockchain(afterHeight, includeStego, sink));
     }
 
     @GetMapping("/tally")
@@ -34,6 +75,11 @@ public class AdminController {
         return ResponseEntity.ok(blockchainService.tallyVotes());
     }
 
+    @GetMapping("/tally/cache")
+    public ResponseEntity<Map<String, Object>> getTallyCacheStats() {
+        return ResponseEntity.ok(tallyCache.getStats());
+    }
+
     @GetMapping("/decrypt/{blockHeight}")
     public ResponseEntity<String> decryptVote(@PathVariable int blockHeight) {
         return ResponseEntity.ok(blockchainService.decryptVote(blockHeight));
@@ -43,4 +89,22 @@ public class AdminController {
     public ResponseEntity<?> getVoteStatistics() {
         return ResponseEntity.ok(blockchainService.getVoteStatistics());
     }
-}
\ No newline at end of file
+
+    @GetMapping("/mining/stats")
+    public ResponseEntity<Map<String, Object>> getMiningStats() {
+        return ResponseEntity.ok(miningService.getMiningStats());
+    }
+
+    @GetMapping("/crypto/key-pools")
+    public ResponseEntity<Map<String, Object>> getKeyPoolMetrics() {
+        Map<String, Object> pools = new HashMap<>();
+        pools.put("kyber", liboqsCryptoService.getKeyPoolMetrics());
+        pools.put("ecdh", cryptoService.getEphemeralKeyPoolMetrics());
+        return ResponseEntity.ok(pools);
+    }
+
+    @GetMapping("/crypto/ciphers")
+    public ResponseEntity<Map<String, Object>> getCipherStats() {
+        return ResponseEntity.ok(voteCipherRegistry.getStats());
+    }
+}
@@ -1,12 +1,21 @@
 package com.securevoting.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securevoting.dto.VotePayload;
+import com.securevoting.dto.VotePayloadCodec;
 import com.securevoting.model.Block;
+import com.securevoting.model.VoteEntry;
 import com.securevoting.service.BlockService;
+import com.securevoting.service.SteganographyService;
 import com.securevoting.service.UnifiedCryptoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
@@ -22,11 +31,28 @@ public class BlockController {
     
     @Autowired
     private UnifiedCryptoService cryptoService;
+
+    @Autowired
+    private SteganographyService steganographyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
     
+    // Keyset page of the chain; the next page starts after the height in the X-Next-After-Height header
     @GetMapping
-    public ResponseEntity<List<Block>> getAllBlocks() {
-        List<Block> blocks = blockService.getAllBlocks();
-        return ResponseEntity.ok(blocks);
+    public ResponseEntity<List<Block>> getAllBlocks(@RequestParam(defaultValue = "-1") int afterHeight,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    @RequestParam(defaultValue = "true") boolean includeStego) {
+        int pageLimit = blockService.pageLimit(limit);
+        List<Block> blocks = blockService.getBlocksPage(afterHeight, pageLimit, includeStego);
+        return BlockListing.page(blocks, pageLimit);
+    }
+    
+    // The whole chain above a height as NDJSON, one block per line
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBlocks(@RequestParam(defaultValue = "-1") int afterHeight,
+                                                              @RequestParam(defaultValue = "true") boolean includeStego) {
+        return BlockListing.ndjson(objectMapper, sink -> blockService.streamBlocks(afterHeight, includeStego, sink));
     }
     
     @GetMapping("/latest")
@@ -41,15 +67,18 @@ public class BlockController {
         return ResponseEntity.ok(count);
     }
     
+    // Block lists, like the paged and streamed listings, include stego images unless includeStego=false
     @GetMapping("/election/{electionId}")
-    public ResponseEntity<List<Block>> getBlocksByElection(@PathVariable Integer electionId) {
-        List<Block> blocks = blockService.getBlocksByElection(electionId);
+    public ResponseEntity<List<Block>> getBlocksByElection(@PathVariable Integer electionId,
+                                                           @RequestParam(defaultValue = "true") boolean includeStego) {
+        List<Block> blocks = blockService.getBlocksByElection(electionId, includeStego);
         return ResponseEntity.ok(blocks);
     }
     
     @GetMapping("/voter/{voterId}")
-    public ResponseEntity<List<Block>> getBlocksByVoter(@PathVariable String voterId) {
-        List<Block> blocks = blockService.getBlocksByVoter(voterId);
+    public ResponseEntity<List<Block>> getBlocksByVoter(@PathVariable String voterId,
+                                                        @RequestParam(defaultValue = "true") boolean includeStego) {
+        List<Block> blocks = blockService.getBlocksByVoter(voterId, includeStego);
         return ResponseEntity.ok(blocks);
     }
     
@@ -68,8 +97,9 @@ public class BlockController {
     @GetMapping("/range")
     public ResponseEntity<List<Block>> getBlocksInRange(
             @RequestParam Integer startHeight, 
-            @RequestParam Integer endHeight) {
-        List<Block> blocks = blockService.getBlocksInRange(startHeight, endHeight);
+            @RequestParam Integer endHeight,
+            @RequestParam(defaultValue = "true") boolean includeStego) {
+        List<Block> blocks = blockService.getBlocksInRange(startHeight, endHeight, includeStego);
         return ResponseEntity.ok(blocks);
     }
     
@@ -79,6 +109,11 @@ public class BlockController {
         return ResponseEntity.ok(statistics);
     }
     
+    @GetMapping("/vote-counts")
+    public ResponseEntity<Map<Integer, Long>> getVoteCountsByElection() {
+        return ResponseEntity.ok(blockService.getVoteCountsByElection());
+    }
+    
     @GetMapping("/election/{electionId}/count")
     public ResponseEntity<Long> getBlockCountByElection(@PathVariable Integer electionId) {
         Long count = blockService.getBlockCountByElection(electionId);
@@ -111,7 +146,8 @@ public class BlockController {
     }
 
     @GetMapping("/{blockHeight}/analyze-key")
-    public ResponseEntity<Map<String, Object>> analyzeKeyFromBlock(@PathVariable Integer blockHeight) {
+    public ResponseEntity<Map<String, Object>> analyzeKeyFromBlock(@PathVariable Integer blockHeight,
+                                                                   @RequestParam(defaultValue = "0") int entryIndex) {
         try {
             Optional<Block> blockOpt = blockService.getBlockByHeight(blockHeight);
             if (blockOpt.isEmpty()) {
@@ -126,32 +162,42 @@ public class BlockController {
                 return ResponseEntity.badRequest().body(response);
             }
             
-            // Extract the steganographic data
-            com.securevoting.service.SteganographyService steganographyService = new com.securevoting.service.SteganographyService();
-            byte[] extractedData = steganographyService.extractData(block.getStegoImageData());
-            String extractedString = new String(extractedData);
+            // Multi-vote blocks carry one stego image per entry
+            List<VoteEntry> entries = blockService.getVoteEntries(block);
+            if (entryIndex < 0 || entryIndex >= entries.size()) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("error", "Block " + blockHeight + " has no vote entry " + entryIndex);
+                return ResponseEntity.badRequest().body(response);
+            }
             
-            // Split the data
-            String[] parts = extractedString.split(":");
+            // Extract the steganographic data
+            byte[] extractedData = steganographyService.extractData(entries.get(entryIndex).getStegoImageData());
             
             Map<String, Object> response = new HashMap<>();
             response.put("blockHeight", block.getBlockHeight());
-            response.put("extractedDataLength", extractedString.length());
-            response.put("parts", parts.length);
+            response.put("extractedDataLength", extractedData.length);
             
-            if (parts.length >= 2) {
-                String keyB64 = parts[0];
-                byte[] keyBytes = java.util.Base64.getDecoder().decode(keyB64);
-                
-                response.put("keyBase64Length", keyB64.length());
-                response.put("keyBytesLength", keyBytes.length);
-                response.put("keyFirstBytes", java.util.Arrays.toString(java.util.Arrays.copyOfRange(keyBytes, 0, Math.min(10, keyBytes.length))));
-                response.put("keyLastBytes", java.util.Arrays.toString(java.util.Arrays.copyOfRange(keyBytes, Math.max(0, keyBytes.length - 10), keyBytes.length)));
-                
-                if (keyBytes.length > 0) {
-                    response.put("firstByteHex", "0x" + Integer.toHexString(keyBytes[0] & 0xFF));
-                    response.put("isX509Format", keyBytes[0] == 0x30); // DER SEQUENCE starts with 0x30
+            // Binary and JSON payloads are decoded; anything else is the legacy "key:..." string
+            VotePayload payload = parsePayload(extractedData);
+            if (payload != null) {
+                response.put("payloadFormat", VotePayloadCodec.isBinary(extractedData) ? "binary" : "json");
+                response.put("algorithm", payload.getAlgorithm());
+                response.put("hasQkdMetadata", payload.getQkdMetadata() != null);
+                response.put("ivLength", base64Length(payload.getIv()));
+                response.put("cipherTextLength", base64Length(payload.getCipherText()));
+                response.put("hmacLength", base64Length(payload.getHmac()));
+                response.put("version", payload.getVersion());
+                if (payload.getEphemeralPublicKey() != null) {
+                    putKeyAnalysis(response, payload.getEphemeralPublicKey());
                 }
+                return ResponseEntity.ok(response);
+            }
+            
+            String[] parts = new String(extractedData, StandardCharsets.UTF_8).split(":");
+            response.put("payloadFormat", "legacy");
+            response.put("parts", parts.length);
+            if (parts.length >= 2) {
+                putKeyAnalysis(response, parts[0]);
             }
             
             return ResponseEntity.ok(response);
@@ -166,6 +212,34 @@ public class BlockController {
         }
     }
 
+    // null unless the data is a binary or JSON VotePayload
+    private static VotePayload parsePayload(byte[] extractedData) {
+        try {
+            VotePayload payload = VotePayloadCodec.parse(extractedData);
+            return payload != null && payload.getAlgorithm() != null ? payload : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Integer base64Length(String value) {
+        return value != null ? java.util.Base64.getDecoder().decode(value).length : null;
+    }
+
+    private static void putKeyAnalysis(Map<String, Object> response, String keyB64) {
+        byte[] keyBytes = java.util.Base64.getDecoder().decode(keyB64);
+        
+        response.put("keyBase64Length", keyB64.length());
+        response.put("keyBytesLength", keyBytes.length);
+        response.put("keyFirstBytes", java.util.Arrays.toString(java.util.Arrays.copyOfRange(keyBytes, 0, Math.min(10, keyBytes.length))));
+        response.put("keyLastBytes", java.util.Arrays.toString(java.util.Arrays.copyOfRange(keyBytes, Math.max(0, keyBytes.length - 10), keyBytes.length)));
+        
+        if (keyBytes.length > 0) {
+            response.put("firstByteHex", "0x" + Integer.toHexString(keyBytes[0] & 0xFF));
+            response.put("isX509Format", keyBytes[0] == 0x30); // DER SEQUENCE starts with 0x30
+        }
+    }
+
     @GetMapping("/{blockHeight}/decrypt-vote")
     public ResponseEntity<Map<String, Object>> decryptVoteFromBlock(@PathVariable Integer blockHeight) {
         try {
@@ -183,26 +257,37 @@ public class BlockController {
                 return ResponseEntity.badRequest().body(response);
             }
             
-            // Decrypt the vote from the steganographic image
-            String decryptedVoteJson = cryptoService.decryptVote(block.getStegoImageData());
-            
-            // Parse the decrypted JSON
-            com.google.gson.Gson gson = new com.google.gson.Gson();
-            @SuppressWarnings("unchecked")
-            Map<String, Object> voteMap = gson.fromJson(decryptedVoteJson, Map.class);
+            List<Map<String, Object>> votes = new ArrayList<>();
+            for (VoteEntry entry : blockService.getVoteEntries(block)) {
+                // Decrypt the vote from the steganographic image
+                String decryptedVoteJson = cryptoService.decryptVote(entry.getStegoImageData());
+                
+                // Parse the decrypted JSON
+                com.google.gson.Gson gson = new com.google.gson.Gson();
+                @SuppressWarnings("unchecked")
+                Map<String, Object> voteMap = gson.fromJson(decryptedVoteJson, Map.class);
+                
+                // Create response with vote details
+                Map<String, Object> vote = new HashMap<>();
+                vote.put("blockHeight", block.getBlockHeight());
+                vote.put("voterId", entry.getVoterId());
+                vote.put("electionId", entry.getElectionId());
+                vote.put("electionName", entry.getElectionName());
+                vote.put("timestamp", entry.getTimestamp());
+                vote.put("rawData", decryptedVoteJson);
+                vote.put("voteData", voteMap.get("voteData"));
+                vote.put("candidateName", voteMap.get("voteData"));
+                vote.put("voteHash", voteMap.get("voteHash"));
+                votes.add(vote);
+            }
             
-            // Create response with vote details
+            if (!block.isMultiVote()) {
+                return ResponseEntity.ok(votes.get(0));
+            }
             Map<String, Object> response = new HashMap<>();
             response.put("blockHeight", block.getBlockHeight());
-            response.put("voterId", block.getVoterId());
-            response.put("electionId", block.getElectionId());
-            response.put("electionName", block.getElectionName());
-            response.put("timestamp", block.getTimestamp());
-            response.put("rawData", decryptedVoteJson);
-            response.put("voteData", voteMap.get("voteData"));
-            response.put("candidateName", voteMap.get("voteData"));
-            response.put("voteHash", voteMap.get("voteHash"));
-            
+            response.put("merkleRoot", block.getMerkleRoot());
+            response.put("votes", votes);
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
@@ -0,0 +1,54 @@
+package com.securevoting.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securevoting.model.Block;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Response shapes shared by the block listing endpoints: keyset pages with a cursor
+ * header, and NDJSON streams with one block per line.
+ */
+final class BlockListing {
+
+    // afterHeight of the next page; absent on the last page
+    static final String NEXT_CURSOR_HEADER = "X-Next-After-Height";
+
+    private BlockListing() {}
+
+    static ResponseEntity<List<Block>> page(List<Block> blocks, int limit) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (blocks.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(blocks.get(blocks.size() - 1).getBlockHeight()));
+        }
+        return response.body(blocks);
+    }
+
+    /**
+     * @param source Feeds every block of the listing to the sink it is given
+     */
+    static ResponseEntity<StreamingResponseBody> ndjson(ObjectMapper objectMapper, Consumer<Consumer<Block>> source) {
+        StreamingResponseBody body = out -> {
+            try {
+                source.accept(block -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(block));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Client went away; closing the cursor is all there is left to do
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
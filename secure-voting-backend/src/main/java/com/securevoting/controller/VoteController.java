@@ -4,11 +4,14 @@ import com.securevoting.model.Block;
 import com.securevoting.model.Candidate;
 import com.securevoting.model.Election;
 import com.securevoting.model.UserDetails;
-import com.securevoting.repository.BlockRepository;
+import com.securevoting.model.VoteEntry;
 import com.securevoting.repository.CandidateRepository;
 import com.securevoting.repository.ElectionRepository;
 import com.securevoting.repository.UserDetailsRepository;
 import com.securevoting.security.services.UserDetailsImpl;
+import com.securevoting.service.BlockSequencer;
+import com.securevoting.service.BlockService;
+import com.securevoting.service.HomomorphicTallyService;
 import com.securevoting.service.UnifiedCryptoService;
 import com.securevoting.service.SteganographyService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,7 +36,7 @@ public class VoteController {
     private CandidateRepository candidateRepository;
 
     @Autowired
-    private BlockRepository blockRepository;
+    private BlockService blockService;
 
     @Autowired
     private UnifiedCryptoService cryptoService;
@@ -44,6 +47,12 @@ public class VoteController {
     @Autowired
     private UserDetailsRepository userDetailsRepository;
 
+    @Autowired
+    private BlockSequencer blockSequencer;
+
+    @Autowired
+    private HomomorphicTallyService homomorphicTallyService;
+
     @GetMapping("/debug-auth")
     public ResponseEntity<Map<String, Object>> debugAuth() {
         Map<String, Object> response = new HashMap<>();
@@ -249,7 +258,7 @@ public class VoteController {
             }
 
             // Check if voter has already voted in this election
-            boolean hasVoted = blockRepository.findByVoterIdAndElectionId(userVoterId, electionId).isPresent();
+            boolean hasVoted = blockService.hasVoted(userVoterId, electionId);
             if (hasVoted) {
                 Map<String, Object> errorResponse = new HashMap<>();
                 errorResponse.put("error", "You have already voted in this election");
@@ -259,49 +268,23 @@ public class VoteController {
             // Create vote data
             Election election = electionOpt.get();
             String voteJson = String.format(
-                "{\"voterId\":\"%s\", \"voteData\":\"%s\", \"electionId\":%d, \"electionName\":\"%s\"}",
-                userVoterId, candidate.getName(), electionId, election.getName()
+                "{\"voterId\":\"%s\", \"voteData\":\"%s\", \"candidateId\":%d, \"electionId\":%d, \"electionName\":\"%s\"}",
+                userVoterId, candidate.getName(), candidateId, electionId, election.getName()
             );
 
             // Encrypt the vote using hybrid cryptography
-            String encryptedPayloadJson = cryptoService.encryptVote(voteJson);
+            byte[] encryptedPayload = cryptoService.encryptVoteForEmbedding(voteJson);
 
             // Hide the encrypted data in steganographic image
-            byte[] stegoImageData = steganographyService.embedData(encryptedPayloadJson.getBytes());
+            byte[] stegoImageData = steganographyService.embedData(encryptedPayload);
 
-            // Get previous block hash and calculate new block height
-            String previousHash = blockRepository.findTopByOrderByBlockHeightDesc()
-                .map(Block::getHash)
-                .orElse("0");
-            
-            int newBlockHeight = blockRepository.findTopByOrderByBlockHeightDesc()
-                .map(b -> b.getBlockHeight() + 1)
-                .orElse(0);
-
-            // Create new block
-            Block newBlock = new Block(
-                "Encrypted vote saved in stego_image_data.",
-                previousHash,
-                userVoterId,
-                newBlockHeight,
-                electionId,
-                election.getName()
-            );
-
-            // Mine the block (simplified - just calculate hash)
-            newBlock.mineBlock(4);
-            newBlock.setStegoImageData(stegoImageData);
+            // Encrypted one-hot candidate vector for the homomorphic tally (null when it is disabled)
+            byte[] homomorphicBallot = homomorphicTallyService.encryptBallot(electionId, candidateId);
 
-            // Save block to database
-            blockRepository.save(newBlock);
-
-            // Update user's vote count and last election voted
-            UserDetails userDetailsToUpdate = userDetailsOpt.get();
-            userDetailsToUpdate.setNoElectionsVoted(
-                (userDetailsToUpdate.getNoElectionsVoted() == null ? 0 : userDetailsToUpdate.getNoElectionsVoted()) + 1
-            );
-            userDetailsToUpdate.setLastElectionVoted(election.getName());
-            userDetailsRepository.save(userDetailsToUpdate);
+            // Queue the vote for the next group commit; the sequencer assigns the height, mines the
+            // block and bumps the voter's election count in the same transaction
+            Block newBlock = blockSequencer.append(userVoterId, electionId, election.getName(),
+                    stegoImageData, homomorphicBallot);
 
             // Prepare success response
             Map<String, Object> response = new HashMap<>();
@@ -328,15 +311,15 @@ public class VoteController {
     @GetMapping("/status/{voterId}/{electionId}")
     public ResponseEntity<Map<String, Object>> getVoteStatus(@PathVariable String voterId, @PathVariable Integer electionId) {
         try {
-            Optional<Block> voteBlock = blockRepository.findByVoterIdAndElectionId(voterId, electionId);
+            Optional<VoteEntry> vote = blockService.findVote(voterId, electionId);
             
             Map<String, Object> response = new HashMap<>();
-            if (voteBlock.isPresent()) {
-                Block block = voteBlock.get();
+            if (vote.isPresent()) {
+                VoteEntry entry = vote.get();
                 response.put("hasVoted", true);
-                response.put("blockHeight", block.getBlockHeight());
-                response.put("timestamp", block.getTimestamp());
-                response.put("electionName", block.getElectionName());
+                response.put("blockHeight", entry.getBlockHeight());
+                response.put("timestamp", entry.getTimestamp());
+                response.put("electionName", entry.getElectionName());
             } else {
                 response.put("hasVoted", false);
             }
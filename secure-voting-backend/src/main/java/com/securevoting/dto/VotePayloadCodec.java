@@ -0,0 +1,296 @@
+package com.securevoting.dto;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Binary wire format for {@link VotePayload}, as embedded in the steganographic image.
+ *
+ * Layout (version 1): the magic bytes "SVP", a version byte, then the fields below in
+ * order, each as an unsigned LEB128 varint of (length + 1) followed by the bytes; 0
+ * marks an absent (null) field.
+ * <ul>
+ *   <li>algorithm - UTF-8</li>
+ *   <li>ephemeralPublicKey - raw key bytes (the Base64 field decoded)</li>
+ *   <li>qkdMetadata - a kind byte, then: {@code 0} UTF-8 text; {@code 1} raw bytes of a
+ *       Base64 string; {@code 2} KEM record of secret key, KEM ciphertext and algorithm,
+ *       each length-prefixed, with the public key taken from ephemeralPublicKey</li>
+ *   <li>iv, cipherText, hmac - raw bytes</li>
+ *   <li>version - varint (value + 1)</li>
+ * </ul>
+ * Decoding gives back the same Base64 strings that were encoded, so HMACs computed
+ * over the Base64 fields verify unchanged. Legacy payloads are JSON and always start
+ * with '{', which never collides with the magic.
+ */
+public final class VotePayloadCodec {
+
+    private static final byte[] MAGIC = {'S', 'V', 'P'};
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int METADATA_TEXT = 0;
+    private static final int METADATA_BASE64 = 1;
+    private static final int METADATA_KEM = 2;
+
+    private static final Gson GSON = new Gson();
+
+    private VotePayloadCodec() {
+    }
+
+    /**
+     * @return true if the bytes start with the binary payload magic
+     */
+    public static boolean isBinary(byte[] data) {
+        return data.length > MAGIC.length && data[0] == MAGIC[0] && data[1] == MAGIC[1] && data[2] == MAGIC[2];
+    }
+
+    /**
+     * Parses an extracted payload, auto-detecting binary and legacy JSON encodings.
+     */
+    public static VotePayload parse(byte[] data) {
+        if (isBinary(data)) {
+            return decode(data);
+        }
+        return GSON.fromJson(new String(data, StandardCharsets.UTF_8), VotePayload.class);
+    }
+
+    public static String toJson(VotePayload payload) {
+        return GSON.toJson(payload);
+    }
+
+    public static byte[] encode(VotePayload payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(FORMAT_VERSION);
+
+        writeField(out, utf8(payload.getAlgorithm()));
+        writeField(out, base64(payload.getEphemeralPublicKey()));
+        writeField(out, encodeMetadata(payload));
+        writeField(out, base64(payload.getIv()));
+        writeField(out, base64(payload.getCipherText()));
+        writeField(out, base64(payload.getHmac()));
+        writeVarint(out, payload.getVersion() != null ? payload.getVersion() + 1L : 0L);
+        return out.toByteArray();
+    }
+
+    public static VotePayload decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Not a binary vote payload");
+        }
+        Reader in = new Reader(data, MAGIC.length);
+        int formatVersion = in.readByte();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported vote payload format version " + formatVersion);
+        }
+
+        VotePayload payload = new VotePayload();
+        payload.setAlgorithm(text(in.readField()));
+        payload.setEphemeralPublicKey(base64(in.readField()));
+        payload.setQkdMetadata(decodeMetadata(in.readField(), payload.getEphemeralPublicKey()));
+        payload.setIv(base64(in.readField()));
+        payload.setCipherText(base64(in.readField()));
+        payload.setHmac(base64(in.readField()));
+        long version = in.readVarint();
+        payload.setVersion(version == 0 ? null : (int) (version - 1));
+        return payload;
+    }
+
+    private static byte[] encodeMetadata(VotePayload payload) {
+        String metadata = payload.getQkdMetadata();
+        if (metadata == null) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(metadata.length());
+
+        byte[] kem = encodeKemRecord(metadata, payload.getEphemeralPublicKey());
+        if (kem != null) {
+            out.write(METADATA_KEM);
+            out.write(kem, 0, kem.length);
+            return out.toByteArray();
+        }
+
+        byte[] raw = canonicalBase64(metadata);
+        if (raw != null) {
+            out.write(METADATA_BASE64);
+            out.write(raw, 0, raw.length);
+        } else {
+            byte[] text = metadata.getBytes(StandardCharsets.UTF_8);
+            out.write(METADATA_TEXT);
+            out.write(text, 0, text.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static String decodeMetadata(byte[] field, String ephemeralPublicKey) {
+        if (field == null) {
+            return null;
+        }
+        if (field.length == 0) {
+            throw new IllegalArgumentException("Vote payload metadata has no kind byte");
+        }
+        byte[] body = Arrays.copyOfRange(field, 1, field.length);
+        switch (field[0]) {
+            case METADATA_TEXT:
+                return new String(body, StandardCharsets.UTF_8);
+            case METADATA_BASE64:
+                return Base64.getEncoder().encodeToString(body);
+            case METADATA_KEM:
+                Reader in = new Reader(body, 0);
+                JsonObject record = new JsonObject();
+                record.addProperty("secretKey", base64(in.readField()));
+                record.addProperty("ciphertext", base64(in.readField()));
+                record.addProperty("publicKey", ephemeralPublicKey);
+                record.addProperty("algorithm", text(in.readField()));
+                return GSON.toJson(record);
+            default:
+                throw new IllegalArgumentException("Unknown vote payload metadata kind " + field[0]);
+        }
+    }
+
+    // KEM metadata JSON (secretKey, ciphertext, publicKey, algorithm) whose public key
+    // repeats ephemeralPublicKey; anything else is stored as text
+    private static byte[] encodeKemRecord(String metadata, String ephemeralPublicKey) {
+        if (ephemeralPublicKey == null || !metadata.startsWith("{")) {
+            return null;
+        }
+        JsonObject record;
+        try {
+            JsonElement parsed = JsonParser.parseString(metadata);
+            if (!parsed.isJsonObject()) {
+                return null;
+            }
+            record = parsed.getAsJsonObject();
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (record.size() != 4) {
+            return null;
+        }
+        for (Map.Entry<String, JsonElement> member : record.entrySet()) {
+            if (!member.getValue().isJsonPrimitive() || !member.getValue().getAsJsonPrimitive().isString()) {
+                return null;
+            }
+        }
+        if (!record.has("secretKey") || !record.has("ciphertext") || !record.has("publicKey") || !record.has("algorithm")
+                || !ephemeralPublicKey.equals(record.get("publicKey").getAsString())) {
+            return null;
+        }
+        byte[] secretKey = canonicalBase64(record.get("secretKey").getAsString());
+        byte[] ciphertext = canonicalBase64(record.get("ciphertext").getAsString());
+        if (secretKey == null || ciphertext == null) {
+            return null;
+        }
+        // Re-encoding must reproduce the original JSON exactly
+        String rebuilt = "{\"secretKey\":" + GSON.toJson(record.get("secretKey").getAsString())
+                + ",\"ciphertext\":" + GSON.toJson(record.get("ciphertext").getAsString())
+                + ",\"publicKey\":" + GSON.toJson(ephemeralPublicKey)
+                + ",\"algorithm\":" + GSON.toJson(record.get("algorithm").getAsString()) + "}";
+        if (!rebuilt.equals(metadata)) {
+            return null;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(secretKey.length + ciphertext.length + 32);
+        writeField(out, secretKey);
+        writeField(out, ciphertext);
+        writeField(out, utf8(record.get("algorithm").getAsString()));
+        return out.toByteArray();
+    }
+
+    private static byte[] canonicalBase64(String value) {
+        try {
+            byte[] raw = Base64.getDecoder().decode(value);
+            return Base64.getEncoder().encodeToString(raw).equals(value) ? raw : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] base64(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] raw = canonicalBase64(value);
+        if (raw == null) {
+            throw new IllegalArgumentException("Vote payload field is not canonical Base64");
+        }
+        return raw;
+    }
+
+    private static String base64(byte[] value) {
+        return value == null ? null : Base64.getEncoder().encodeToString(value);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static void writeField(ByteArrayOutputStream out, byte[] value) {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        writeVarint(out, value.length + 1L);
+        out.write(value, 0, value.length);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated vote payload");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed length in vote payload");
+        }
+
+        byte[] readField() {
+            long length = readVarint();
+            if (length == 0) {
+                return null;
+            }
+            if (length - 1 > data.length - position) {
+                throw new IllegalArgumentException("Truncated vote payload");
+            }
+            int start = position;
+            position += (int) (length - 1);
+            return Arrays.copyOfRange(data, start, position);
+        }
+    }
+}
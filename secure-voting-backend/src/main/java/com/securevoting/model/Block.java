@@ -4,13 +4,29 @@ import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Lob;
 import javax.persistence.*;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 @Entity
-@Table(name = "blocks")
+@Table(name = "blocks",
+       indexes = @Index(name = "idx_blocks_election_height", columnList = "election_id, block_height"))
 public class Block {
     
+    // voter_id recorded on blocks that carry several votes in block_vote_entries
+    public static final String MULTI_VOTE_VOTER_ID = "BATCH";
+    
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    
+    // MessageDigest is not thread-safe, so each thread keeps its own instance for reuse
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not available", e);
+        }
+    });
+    
     @Id
     @Column(name = "block_height")
     private Integer blockHeight;
@@ -43,6 +59,10 @@ public class Block {
     @Column(name = "nonce", nullable = false)
     private Integer nonce;
     
+    // Root over the block's vote entries; null for legacy single-vote blocks
+    @Column(name = "merkle_root", length = 64)
+    private String merkleRoot;
+    
     // Constructors
     public Block() {}
     
@@ -155,36 +175,46 @@ public class Block {
         this.nonce = nonce;
     }
     
-    // Mining method for proof of work
+    public String getMerkleRoot() {
+        return merkleRoot;
+    }
+    
+    public void setMerkleRoot(String merkleRoot) {
+        this.merkleRoot = merkleRoot;
+    }
+    
+    public boolean isMultiVote() {
+        return merkleRoot != null;
+    }
+    
+    // Mining method for proof of work: the unchanging header prefix is hashed once and the
+    // digest cloned for each nonce, see BlockMiner
     public void mineBlock(int difficulty) {
-        String target = new String(new char[difficulty]).replace('\0', '0');
-        hash = calculateHash(); // Initialize hash before mining
-        
-        while (!hash.substring(0, difficulty).equals(target)) {
-            nonce++;
-            hash = calculateHash();
-        }
+        BlockMiner miner = newMiner();
+        nonce = miner.findNonce(nonce != null ? nonce : 0, difficulty);
+        hash = miner.hashHex(nonce);
     }
     
-    // Calculate hash for the block
+    // Header bytes around the nonce, encoded the same way calculateHash encodes them
+    public BlockMiner newMiner() {
+        byte[] prefix = (previousHash + Long.toString(timestamp)).getBytes(StandardCharsets.UTF_8);
+        byte[] suffix = (data + (merkleRoot != null ? merkleRoot : "")).getBytes(StandardCharsets.UTF_8);
+        return new BlockMiner(prefix, suffix);
+    }
+    
+    // Calculate hash for the block (the Merkle root is only part of the header for multi-vote blocks)
     public String calculateHash() {
-        String dataToHash = previousHash + Long.toString(timestamp) + Integer.toString(nonce) + data;
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(dataToHash.getBytes());
-            
-            // Convert byte array to hexadecimal string
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashBytes) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not available", e);
+        String dataToHash = previousHash + Long.toString(timestamp) + Integer.toString(nonce) + data
+                + (merkleRoot != null ? merkleRoot : "");
+        MessageDigest digest = SHA256.get();
+        byte[] hashBytes = digest.digest(dataToHash.getBytes(StandardCharsets.UTF_8));
+        
+        // Convert byte array to hexadecimal string
+        char[] hex = new char[hashBytes.length * 2];
+        for (int i = 0; i < hashBytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hashBytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[hashBytes[i] & 0xF];
         }
+        return new String(hex);
     }
-}
\ No newline at end of file
+}
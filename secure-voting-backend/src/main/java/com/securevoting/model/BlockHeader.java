@@ -0,0 +1,25 @@
+package com.securevoting.model;
+
+/**
+ * Column projection of a {@link Block} without its data and stego image, for lookups
+ * that only need the chain metadata (tip, double-vote checks, vote status). The full
+ * entity is loaded only where a vote is actually decrypted.
+ */
+public interface BlockHeader {
+
+    Integer getBlockHeight();
+
+    String getHash();
+
+    String getPreviousHash();
+
+    Integer getElectionId();
+
+    String getElectionName();
+
+    String getVoterId();
+
+    Long getTimestamp();
+
+    Integer getNonce();
+}
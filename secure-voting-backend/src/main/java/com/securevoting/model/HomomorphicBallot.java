@@ -0,0 +1,78 @@
+package com.securevoting.model;
+
+import javax.persistence.*;
+
+/**
+ * The EC-ElGamal encrypted one-hot candidate vector cast alongside a vote, so the
+ * election's {@link HomomorphicTally} can be recomputed and audited. Written by the
+ * block sequencer in the same transaction as the vote it belongs to.
+ */
+@Entity
+@Table(name = "homomorphic_ballots",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"block_height", "entry_index"}),
+       indexes = @Index(name = "idx_homomorphic_ballots_election", columnList = "election_id, block_height"))
+public class HomomorphicBallot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ballot_id")
+    private Long ballotId;
+
+    @Column(name = "block_height", nullable = false)
+    private Integer blockHeight;
+
+    // 0 for single-vote blocks, the Merkle leaf index in multi-vote blocks
+    @Column(name = "entry_index", nullable = false)
+    private Integer entryIndex;
+
+    @Column(name = "election_id", nullable = false)
+    private Integer electionId;
+
+    @Lob
+    @Column(name = "ballot", columnDefinition = "BLOB", nullable = false)
+    private byte[] ballot;
+
+    // Constructors
+    public HomomorphicBallot() {}
+
+    // Getters and Setters
+    public Long getBallotId() {
+        return ballotId;
+    }
+
+    public void setBallotId(Long ballotId) {
+        this.ballotId = ballotId;
+    }
+
+    public Integer getBlockHeight() {
+        return blockHeight;
+    }
+
+    public void setBlockHeight(Integer blockHeight) {
+        this.blockHeight = blockHeight;
+    }
+
+    public Integer getEntryIndex() {
+        return entryIndex;
+    }
+
+    public void setEntryIndex(Integer entryIndex) {
+        this.entryIndex = entryIndex;
+    }
+
+    public Integer getElectionId() {
+        return electionId;
+    }
+
+    public void setElectionId(Integer electionId) {
+        this.electionId = electionId;
+    }
+
+    public byte[] getBallot() {
+        return ballot;
+    }
+
+    public void setBallot(byte[] ballot) {
+        this.ballot = ballot;
+    }
+}
@@ -0,0 +1,96 @@
+package com.securevoting.model;
+
+import javax.persistence.*;
+
+/**
+ * Running EC-ElGamal sum of an election's homomorphic ballots: per candidate, the sum of
+ * the encrypted one-hot components of every ballot up to a block height. Only this
+ * aggregate is ever decrypted.
+ */
+@Entity
+@Table(name = "homomorphic_tallies")
+public class HomomorphicTally {
+
+    @Id
+    @Column(name = "election_id")
+    private Integer electionId;
+
+    @Column(name = "election_name")
+    private String electionName;
+
+    // Per candidate: candidate id, then C1 and C2 as compressed points
+    @Lob
+    @Column(name = "ciphertext", columnDefinition = "BLOB", nullable = false)
+    private byte[] ciphertext;
+
+    @Column(name = "ballots", nullable = false)
+    private Long ballots;
+
+    @Column(name = "last_block_height", nullable = false)
+    private Integer lastBlockHeight;
+
+    @Column(name = "updated_at", nullable = false)
+    private Long updatedAt;
+
+    // Constructors
+    public HomomorphicTally() {}
+
+    public HomomorphicTally(Integer electionId, String electionName, byte[] ciphertext,
+                            Long ballots, Integer lastBlockHeight) {
+        this.electionId = electionId;
+        this.electionName = electionName;
+        this.ciphertext = ciphertext;
+        this.ballots = ballots;
+        this.lastBlockHeight = lastBlockHeight;
+        this.updatedAt = System.currentTimeMillis();
+    }
+
+    // Getters and Setters
+    public Integer getElectionId() {
+        return electionId;
+    }
+
+    public void setElectionId(Integer electionId) {
+        this.electionId = electionId;
+    }
+
+    public String getElectionName() {
+        return electionName;
+    }
+
+    public void setElectionName(String electionName) {
+        this.electionName = electionName;
+    }
+
+    public byte[] getCiphertext() {
+        return ciphertext;
+    }
+
+    public void setCiphertext(byte[] ciphertext) {
+        this.ciphertext = ciphertext;
+    }
+
+    public Long getBallots() {
+        return ballots;
+    }
+
+    public void setBallots(Long ballots) {
+        this.ballots = ballots;
+    }
+
+    public Integer getLastBlockHeight() {
+        return lastBlockHeight;
+    }
+
+    public void setLastBlockHeight(Integer lastBlockHeight) {
+        this.lastBlockHeight = lastBlockHeight;
+    }
+
+    public Long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
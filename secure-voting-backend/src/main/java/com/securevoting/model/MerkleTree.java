@@ -0,0 +1,86 @@
+package com.securevoting.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SHA-256 Merkle tree helpers for multi-vote blocks.
+ *
+ * Leaves are hashed from each vote entry, then combined pairwise (the last node is
+ * duplicated when a level has an odd count) until a single root remains.
+ */
+public final class MerkleTree {
+
+    private MerkleTree() {
+    }
+
+    /**
+     * Hash a single vote entry into a Merkle leaf.
+     */
+    public static String leafHash(String voterId, Integer electionId, byte[] stegoImageData) {
+        MessageDigest digest = sha256();
+        digest.update(voterId.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(String.valueOf(electionId).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(stegoImageData);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Compute the Merkle root over leaf hashes, in entry order.
+     *
+     * @param leafHashes Hex encoded leaf hashes
+     * @return Hex encoded root hash
+     */
+    public static String computeRoot(List<String> leafHashes) {
+        if (leafHashes.isEmpty()) {
+            throw new IllegalArgumentException("Cannot build a Merkle tree without leaves");
+        }
+        MessageDigest digest = sha256();
+        List<byte[]> level = new ArrayList<>(leafHashes.size());
+        for (String leaf : leafHashes) {
+            level.add(fromHex(leaf));
+        }
+        while (level.size() > 1) {
+            List<byte[]> parents = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                byte[] left = level.get(i);
+                byte[] right = i + 1 < level.size() ? level.get(i + 1) : left;
+                digest.update(left);
+                digest.update(right);
+                parents.add(digest.digest());
+            }
+            level = parents;
+        }
+        return toHex(level.get(0));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,96 @@
+package com.securevoting.model;
+
+import javax.persistence.*;
+
+/**
+ * Vote counts of one election up to a block height, so the next tally only decrypts the
+ * blocks above it. The hash of the block at that height is kept to detect a replaced chain.
+ */
+@Entity
+@Table(name = "tally_checkpoints")
+public class TallyCheckpoint {
+
+    @Id
+    @Column(name = "election_id")
+    private Integer electionId;
+
+    @Column(name = "last_block_height", nullable = false)
+    private Integer lastBlockHeight;
+
+    @Column(name = "last_block_hash", nullable = false, length = 64)
+    private String lastBlockHash;
+
+    // JSON: election name, candidate id -> {name, count}, name -> count for votes of
+    // candidates that were unknown when counted, and "blockHeight:entryIndex" -> attempts
+    // for votes that failed to decrypt
+    @Column(name = "counts", columnDefinition = "TEXT", nullable = false)
+    private String counts;
+
+    @Column(name = "votes_counted", nullable = false)
+    private Long votesCounted;
+
+    @Column(name = "updated_at", nullable = false)
+    private Long updatedAt;
+
+    // Constructors
+    public TallyCheckpoint() {}
+
+    public TallyCheckpoint(Integer electionId, Integer lastBlockHeight, String lastBlockHash,
+                           String counts, Long votesCounted) {
+        this.electionId = electionId;
+        this.lastBlockHeight = lastBlockHeight;
+        this.lastBlockHash = lastBlockHash;
+        this.counts = counts;
+        this.votesCounted = votesCounted;
+        this.updatedAt = System.currentTimeMillis();
+    }
+
+    // Getters and Setters
+    public Integer getElectionId() {
+        return electionId;
+    }
+
+    public void setElectionId(Integer electionId) {
+        this.electionId = electionId;
+    }
+
+    public Integer getLastBlockHeight() {
+        return lastBlockHeight;
+    }
+
+    public void setLastBlockHeight(Integer lastBlockHeight) {
+        this.lastBlockHeight = lastBlockHeight;
+    }
+
+    public String getLastBlockHash() {
+        return lastBlockHash;
+    }
+
+    public void setLastBlockHash(String lastBlockHash) {
+        this.lastBlockHash = lastBlockHash;
+    }
+
+    public String getCounts() {
+        return counts;
+    }
+
+    public void setCounts(String counts) {
+        this.counts = counts;
+    }
+
+    public Long getVotesCounted() {
+        return votesCounted;
+    }
+
+    public void setVotesCounted(Long votesCounted) {
+        this.votesCounted = votesCounted;
+    }
+
+    public Long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,168 @@
+package com.securevoting.model;
+
+import javax.persistence.*;
+
+/**
+ * A single vote carried inside a multi-vote block.
+ * Legacy single-vote blocks are exposed through the same shape via {@link #fromBlock(Block)}.
+ */
+@Entity
+@Table(name = "block_vote_entries",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"voter_id", "election_id"}),
+       indexes = @Index(name = "idx_vote_entries_block", columnList = "block_height, entry_index"))
+public class VoteEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "entry_id")
+    private Long entryId;
+
+    @Column(name = "block_height", nullable = false)
+    private Integer blockHeight;
+
+    @Column(name = "entry_index", nullable = false)
+    private Integer entryIndex;
+
+    @Column(name = "voter_id", nullable = false, length = 50)
+    private String voterId;
+
+    @Column(name = "election_id")
+    private Integer electionId;
+
+    @Column(name = "election_name", length = 255)
+    private String electionName;
+
+    @Column(name = "leaf_hash", nullable = false, length = 64)
+    private String leafHash;
+
+    @Lob
+    @Column(name = "stego_image_data")
+    private byte[] stegoImageData;
+
+    @Column(name = "timestamp", nullable = false)
+    private Long timestamp;
+
+    // Constructors
+    public VoteEntry() {}
+
+    public VoteEntry(String voterId, Integer electionId, String electionName, byte[] stegoImageData) {
+        this.voterId = voterId;
+        this.electionId = electionId;
+        this.electionName = electionName;
+        this.stegoImageData = stegoImageData;
+        this.leafHash = MerkleTree.leafHash(voterId, electionId, stegoImageData);
+    }
+
+    // Header only, as selected by VoteEntryRepository.findHeaderByVoterIdAndElectionId
+    public VoteEntry(Integer blockHeight, Integer entryIndex, String voterId, Integer electionId,
+                     String electionName, Long timestamp) {
+        this.blockHeight = blockHeight;
+        this.entryIndex = entryIndex;
+        this.voterId = voterId;
+        this.electionId = electionId;
+        this.electionName = electionName;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * View a legacy single-vote block as its one and only vote entry.
+     */
+    public static VoteEntry fromBlock(Block block) {
+        VoteEntry entry = new VoteEntry();
+        entry.setBlockHeight(block.getBlockHeight());
+        entry.setEntryIndex(0);
+        entry.setVoterId(block.getVoterId());
+        entry.setElectionId(block.getElectionId());
+        entry.setElectionName(block.getElectionName());
+        entry.setStegoImageData(block.getStegoImageData());
+        entry.setTimestamp(block.getTimestamp());
+        return entry;
+    }
+
+    /**
+     * Same as {@link #fromBlock(Block)} from the block's header only, so without stego image.
+     */
+    public static VoteEntry fromHeader(BlockHeader header) {
+        VoteEntry entry = new VoteEntry();
+        entry.setBlockHeight(header.getBlockHeight());
+        entry.setEntryIndex(0);
+        entry.setVoterId(header.getVoterId());
+        entry.setElectionId(header.getElectionId());
+        entry.setElectionName(header.getElectionName());
+        entry.setTimestamp(header.getTimestamp());
+        return entry;
+    }
+
+    // Getters and Setters
+    public Long getEntryId() {
+        return entryId;
+    }
+
+    public void setEntryId(Long entryId) {
+        this.entryId = entryId;
+    }
+
+    public Integer getBlockHeight() {
+        return blockHeight;
+    }
+
+    public void setBlockHeight(Integer blockHeight) {
+        this.blockHeight = blockHeight;
+    }
+
+    public Integer getEntryIndex() {
+        return entryIndex;
+    }
+
+    public void setEntryIndex(Integer entryIndex) {
+        this.entryIndex = entryIndex;
+    }
+
+    public String getVoterId() {
+        return voterId;
+    }
+
+    public void setVoterId(String voterId) {
+        this.voterId = voterId;
+    }
+
+    public Integer getElectionId() {
+        return electionId;
+    }
+
+    public void setElectionId(Integer electionId) {
+        this.electionId = electionId;
+    }
+
+    public String getElectionName() {
+        return electionName;
+    }
+
+    public void setElectionName(String electionName) {
+        this.electionName = electionName;
+    }
+
+    public String getLeafHash() {
+        return leafHash;
+    }
+
+    public void setLeafHash(String leafHash) {
+        this.leafHash = leafHash;
+    }
+
+    public byte[] getStegoImageData() {
+        return stegoImageData;
+    }
+
+    public void setStegoImageData(byte[] stegoImageData) {
+        this.stegoImageData = stegoImageData;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -1,6 +1,8 @@
 package com.securevoting.repository;
 
 import com.securevoting.model.Block;
+import com.securevoting.model.BlockHeader;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -13,17 +15,8 @@ import java.util.Optional;
 @Repository
 public interface BlockRepository extends JpaRepository<Block, Integer> {
     
-    // Find blocks by election ID
-    List<Block> findByElectionIdOrderByBlockHeightAsc(Integer electionId);
-    
-    Optional<Block> findByVoterIdAndElectionId(String voterId, Integer electionId);
-    
-    // Find blocks by voter ID
-    List<Block> findByVoterIdOrderByBlockHeightAsc(String voterId);
-    
-    // Find the latest block
-    @Query("SELECT b FROM Block b ORDER BY b.blockHeight DESC")
-    List<Block> findLatestBlock();
+    // Header of a voter's own block, without loading its stego image
+    Optional<BlockHeader> findByVoterIdAndElectionId(String voterId, Integer electionId);
     
     // Count total blocks
     @Query("SELECT COUNT(b) FROM Block b")
@@ -40,22 +33,43 @@ public interface BlockRepository extends JpaRepository<Block, Integer> {
     // Find blocks by hash
     Optional<Block> findByHash(String hash);
     
-    // Get blocks in a range
-    @Query("SELECT b FROM Block b WHERE b.blockHeight BETWEEN :startHeight AND :endHeight ORDER BY b.blockHeight ASC")
-    List<Block> findBlocksInRange(@Param("startHeight") Integer startHeight, @Param("endHeight") Integer endHeight);
+    // Keyset pages in chain order: blocks above a height, up to the page size
+    List<Block> findByElectionIdAndBlockHeightGreaterThanOrderByBlockHeightAsc(Integer electionId, Integer blockHeight, Pageable pageable);
+    
+    List<Block> findByElectionIdIsNullAndBlockHeightGreaterThanOrderByBlockHeightAsc(Integer blockHeight, Pageable pageable);
+    
+    @Query("SELECT DISTINCT b.electionId FROM Block b WHERE b.electionId IS NOT NULL")
+    List<Integer> findElectionIds();
+    
+    @Query("SELECT b.hash FROM Block b WHERE b.blockHeight = :blockHeight")
+    Optional<String> findHashByBlockHeight(@Param("blockHeight") Integer blockHeight);
+    
+    // Votes of an election up to a height: single-vote blocks plus the entries of multi-vote blocks
+    @Query(value = "SELECT (SELECT COUNT(*) FROM blocks WHERE election_id = :electionId AND block_height <= :height " +
+            "AND merkle_root IS NULL AND voter_id <> 'SYSTEM') + (SELECT COUNT(*) FROM block_vote_entries " +
+            "WHERE election_id = :electionId AND block_height <= :height)", nativeQuery = true)
+    Long countVotesUpTo(@Param("electionId") Integer electionId, @Param("height") Integer height);
+    
+    // Votes per election over the whole chain, as [election_id, count] rows
+    @Query(value = "SELECT v.election_id, COUNT(*) FROM (SELECT election_id FROM blocks WHERE election_id IS NOT NULL " +
+            "AND merkle_root IS NULL AND voter_id <> 'SYSTEM' UNION ALL SELECT election_id FROM block_vote_entries) v " +
+            "GROUP BY v.election_id", nativeQuery = true)
+    List<Object[]> countVotesByElection();
     
     // Check if voter has already voted in an election
     boolean existsByVoterIdAndElectionId(String voterId, Integer electionId);
     
-    // Find the latest block by block height
-    Optional<Block> findTopByOrderByBlockHeightDesc();
+    // Header of the latest block, i.e. the chain tip
+    Optional<BlockHeader> findTopByOrderByBlockHeightDesc();
     
     // Get total number of blocks
     @Query("SELECT COUNT(b) FROM Block b")
     Long getTotalBlocks();
     
-    // Get count of unique voters
-    @Query("SELECT COUNT(DISTINCT b.voterId) FROM Block b WHERE b.voterId != 'SYSTEM'")
+    // Get count of unique voters across single-vote blocks and multi-vote block entries
+    @Query(value = "SELECT COUNT(DISTINCT v.voter_id) FROM (" +
+            "SELECT voter_id FROM blocks WHERE voter_id NOT IN ('SYSTEM', 'BATCH') " +
+            "UNION SELECT voter_id FROM block_vote_entries) v", nativeQuery = true)
     Long getUniqueVoters();
     
     // Update voter_id in blocks (for username changes) - using native SQL to bypass Hibernate constraints
@@ -0,0 +1,9 @@
+package com.securevoting.repository;
+
+import com.securevoting.model.TallyCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TallyCheckpointRepository extends JpaRepository<TallyCheckpoint, Integer> {
+}
@@ -0,0 +1,31 @@
+package com.securevoting.repository;
+
+import com.securevoting.model.VoteEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VoteEntryRepository extends JpaRepository<VoteEntry, Long> {
+
+    // Find the entries of a multi-vote block in Merkle leaf order
+    List<VoteEntry> findByBlockHeightOrderByEntryIndexAsc(Integer blockHeight);
+
+    // Entries of several multi-vote blocks in chain and Merkle leaf order
+    List<VoteEntry> findByBlockHeightInOrderByBlockHeightAscEntryIndexAsc(Collection<Integer> blockHeights);
+
+    // A voter's entry without its stego image, for status checks
+    @Query("SELECT new com.securevoting.model.VoteEntry(e.blockHeight, e.entryIndex, e.voterId, e.electionId, " +
+            "e.electionName, e.timestamp) FROM VoteEntry e WHERE e.voterId = :voterId AND e.electionId = :electionId")
+    Optional<VoteEntry> findHeaderByVoterIdAndElectionId(@Param("voterId") String voterId,
+                                                        @Param("electionId") Integer electionId);
+
+    // Check if voter has already voted in an election
+    boolean existsByVoterIdAndElectionId(String voterId, Integer electionId);
+
+}
@@ -0,0 +1,388 @@
+package com.securevoting.service;
+
+import com.securevoting.model.Block;
+import com.securevoting.model.BlockHeader;
+import com.securevoting.model.MerkleTree;
+import com.securevoting.model.VoteEntry;
+import com.securevoting.repository.BlockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-writer sequencer and group-commit pipeline for the vote chain.
+ *
+ * Request threads enqueue validated votes into a bounded queue and receive a
+ * CompletableFuture receipt. One committer thread owns the chain tip (height and
+ * hash) in memory, drains the queue in batches, mines each block in order (the nonce
+ * search itself is spread over cores by {@link MiningService}) and
+ * writes the whole batch to {@code blocks} and {@code user_details} in a single
+ * JDBC-batched transaction.
+ *
+ * When {@code blockchain.block.max-votes} is above 1, votes of the same election are
+ * packed into multi-vote blocks whose entries go to {@code block_vote_entries} under
+ * a Merkle root, so mining and header overhead are paid per block instead of per vote.
+ *
+ * Homomorphic ballots travelling with the votes are stored and added into their
+ * elections' aggregates by {@link HomomorphicTallyService} in the same transaction.
+ */
+@Service
+public class BlockSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockSequencer.class);
+
+    public static final String VOTE_BLOCK_DATA = "Encrypted vote saved in stego_image_data.";
+    private static final String MULTI_VOTE_BLOCK_DATA = "%d encrypted votes saved in block_vote_entries.";
+    private static final String EMPTY_CHAIN_HASH = "0";
+
+    private static final String INSERT_BLOCK_SQL =
+            "INSERT INTO blocks (block_height, hash, previous_hash, election_id, election_name, voter_id, " +
+            "data, stego_image_data, timestamp, nonce, merkle_root) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_VOTER_SQL =
+            "UPDATE user_details SET no_elections_voted = COALESCE(no_elections_voted, 0) + 1 WHERE voter_id = ?";
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT INTO block_vote_entries (block_height, entry_index, voter_id, election_id, election_name, " +
+            "leaf_hash, stego_image_data, timestamp) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Value("${blockchain.ingest.queue.capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${blockchain.ingest.batch.size:50}")
+    private int maxBatchSize;
+
+    @Value("${blockchain.ingest.enqueue.timeout.ms:5000}")
+    private long enqueueTimeoutMs;
+
+    @Value("${blockchain.block.max-votes:1}")
+    private int maxVotesPerBlock;
+
+    @Autowired
+    private BlockRepository blockRepository;
+
+    @Autowired
+    private MiningService miningService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private HomomorphicTallyService homomorphicTallyService;
+
+    @Autowired
+    private TallyCache tallyCache;
+
+    private BlockingQueue<PendingVote> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread committer;
+    private volatile boolean running;
+    private volatile boolean tipStale = true;
+
+    // Chain tip - only read and written on the committer thread
+    private int tipHeight;
+    private String tipHash;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        committer = new Thread(this::runCommitter, "block-committer");
+        committer.setDaemon(true);
+        committer.start();
+        logger.info("Block sequencer started - queue capacity: {}, batch size: {}, votes per block: {}",
+                queueCapacity, maxBatchSize, maxVotesPerBlock);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        committer.interrupt();
+        List<PendingVote> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        for (PendingVote vote : abandoned) {
+            vote.receipt.completeExceptionally(new IllegalStateException("Block sequencer is shutting down"));
+        }
+    }
+
+    /**
+     * Enqueues a validated vote for the next group commit.
+     *
+     * @param voterId        Voter casting the vote
+     * @param electionId     Election the vote belongs to
+     * @param electionName   Election name stored alongside the block
+     * @param stegoImageData Steganographic image carrying the encrypted vote
+     * @param homomorphicBallot Encrypted one-hot candidate vector, or null if the homomorphic tally is disabled
+     * @return Receipt completed with the saved block once its batch has committed
+     */
+    public CompletableFuture<Block> submit(String voterId, Integer electionId, String electionName,
+                                           byte[] stegoImageData, byte[] homomorphicBallot) {
+        PendingVote vote = new PendingVote(voterId, electionId, electionName, stegoImageData, homomorphicBallot);
+        try {
+            if (!running || !queue.offer(vote, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                vote.receipt.completeExceptionally(
+                        new RejectedExecutionException("Vote queue is full, please retry shortly"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            vote.receipt.completeExceptionally(e);
+        }
+        return vote.receipt;
+    }
+
+    /**
+     * Enqueues a vote and waits until its block has been committed.
+     *
+     * @return The mined and saved block
+     * @throws Exception if the vote was rejected or its batch failed to commit
+     */
+    public Block append(String voterId, Integer electionId, String electionName,
+                        byte[] stegoImageData, byte[] homomorphicBallot) throws Exception {
+        try {
+            return submit(voterId, electionId, electionName, stegoImageData, homomorphicBallot).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Forces the tip to be reloaded from the database before the next batch.
+     * Must be called whenever blocks are written outside of this sequencer.
+     */
+    public void resetTip() {
+        tipStale = true;
+    }
+
+    private void runCommitter() {
+        List<PendingVote> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in block committer: {}", e.getMessage(), e);
+                for (PendingVote vote : batch) {
+                    vote.receipt.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+        logger.info("Block committer stopped");
+    }
+
+    private void commit(List<PendingVote> batch) {
+        try {
+            List<Block> blocks = writeInOneTransaction(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).receipt.complete(blocks.get(i));
+            }
+            logger.debug("Committed {} vote blocks up to height {}", blocks.size(), tipHeight);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                logger.error("Failed to commit vote block for voter {}: {}", batch.get(0).voterId, e.getMessage());
+                batch.get(0).receipt.completeExceptionally(e);
+                return;
+            }
+            // Isolate the failing vote(s) so one bad entry does not reject the whole batch
+            logger.warn("Group commit of {} votes failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (PendingVote vote : batch) {
+                commit(Collections.singletonList(vote));
+            }
+        }
+    }
+
+    private List<Block> writeInOneTransaction(List<PendingVote> batch) {
+        if (tipStale) {
+            loadTip();
+        }
+
+        // receipts.get(i) is the block that ends up carrying batch.get(i)
+        List<Block> receipts = new ArrayList<>(Collections.nCopies(batch.size(), (Block) null));
+        List<Block> blocks = new ArrayList<>();
+        List<VoteEntry> entries = new ArrayList<>();
+        if (maxVotesPerBlock <= 1) {
+            for (int i = 0; i < batch.size(); i++) {
+                PendingVote vote = batch.get(i);
+                Block block = nextBlock(blocks, VOTE_BLOCK_DATA, vote.voterId, vote.electionId, vote.electionName);
+                miningService.mine(block);
+                block.setStegoImageData(vote.stegoImageData);
+                vote.blockHeight = block.getBlockHeight();
+                receipts.set(i, block);
+            }
+        } else {
+            packMultiVoteBlocks(batch, receipts, blocks, entries);
+        }
+        List<HomomorphicTallyService.BallotRecord> ballots = new ArrayList<>();
+        for (PendingVote vote : batch) {
+            if (vote.homomorphicBallot != null && vote.electionId != null) {
+                ballots.add(new HomomorphicTallyService.BallotRecord(vote.blockHeight, vote.entryIndex,
+                        vote.electionId, vote.electionName, vote.homomorphicBallot));
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_BLOCK_SQL, blocks, blocks.size(), (ps, block) -> {
+                    ps.setInt(1, block.getBlockHeight());
+                    ps.setString(2, block.getHash());
+                    ps.setString(3, block.getPreviousHash());
+                    if (block.getElectionId() != null) {
+                        ps.setInt(4, block.getElectionId());
+                    } else {
+                        ps.setNull(4, Types.INTEGER);
+                    }
+                    ps.setString(5, block.getElectionName());
+                    ps.setString(6, block.getVoterId());
+                    ps.setString(7, block.getData());
+                    ps.setBytes(8, block.getStegoImageData());
+                    ps.setLong(9, block.getTimestamp());
+                    ps.setInt(10, block.getNonce());
+                    ps.setString(11, block.getMerkleRoot());
+                });
+                if (!entries.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, entries, entries.size(), (ps, entry) -> {
+                        ps.setInt(1, entry.getBlockHeight());
+                        ps.setInt(2, entry.getEntryIndex());
+                        ps.setString(3, entry.getVoterId());
+                        if (entry.getElectionId() != null) {
+                            ps.setInt(4, entry.getElectionId());
+                        } else {
+                            ps.setNull(4, Types.INTEGER);
+                        }
+                        ps.setString(5, entry.getElectionName());
+                        ps.setString(6, entry.getLeafHash());
+                        ps.setBytes(7, entry.getStegoImageData());
+                        ps.setLong(8, entry.getTimestamp());
+                    });
+                }
+                jdbcTemplate.batchUpdate(UPDATE_VOTER_SQL, batch, batch.size(),
+                        (ps, vote) -> ps.setString(1, vote.voterId));
+                if (!ballots.isEmpty()) {
+                    homomorphicTallyService.record(ballots);
+                }
+            });
+        } catch (RuntimeException e) {
+            // The in-memory tip may no longer match the table; re-read it before the next batch
+            tipStale = true;
+            throw e;
+        }
+
+        Block last = blocks.get(blocks.size() - 1);
+        tipHeight = last.getBlockHeight();
+        tipHash = last.getHash();
+        Set<Integer> electionIds = new HashSet<>();
+        for (Block block : blocks) {
+            electionIds.add(block.getElectionId());
+        }
+        tallyCache.blocksAppended(tipHeight, electionIds);
+        return receipts;
+    }
+
+    private void packMultiVoteBlocks(List<PendingVote> batch, List<Block> receipts,
+                                     List<Block> blocks, List<VoteEntry> entries) {
+        // Keep each block within one election so per-election block queries stay meaningful
+        Map<Integer, List<Integer>> byElection = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            byElection.computeIfAbsent(batch.get(i).electionId, k -> new ArrayList<>()).add(i);
+        }
+
+        for (List<Integer> indices : byElection.values()) {
+            for (int from = 0; from < indices.size(); from += maxVotesPerBlock) {
+                List<Integer> chunk = indices.subList(from, Math.min(from + maxVotesPerBlock, indices.size()));
+                PendingVote first = batch.get(chunk.get(0));
+                Block block = nextBlock(blocks, String.format(MULTI_VOTE_BLOCK_DATA, chunk.size()),
+                        Block.MULTI_VOTE_VOTER_ID, first.electionId, first.electionName);
+
+                List<String> leaves = new ArrayList<>(chunk.size());
+                for (int entryIndex = 0; entryIndex < chunk.size(); entryIndex++) {
+                    PendingVote vote = batch.get(chunk.get(entryIndex));
+                    VoteEntry entry = new VoteEntry(vote.voterId, vote.electionId, vote.electionName, vote.stegoImageData);
+                    entry.setBlockHeight(block.getBlockHeight());
+                    entry.setEntryIndex(entryIndex);
+                    entry.setTimestamp(block.getTimestamp());
+                    entries.add(entry);
+                    leaves.add(entry.getLeafHash());
+                    vote.blockHeight = block.getBlockHeight();
+                    vote.entryIndex = entryIndex;
+                    receipts.set(chunk.get(entryIndex), block);
+                }
+
+                block.setMerkleRoot(MerkleTree.computeRoot(leaves));
+                miningService.mine(block);
+            }
+        }
+    }
+
+    private Block nextBlock(List<Block> blocks, String data, String voterId, Integer electionId, String electionName) {
+        Block previous = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        int height = previous != null ? previous.getBlockHeight() + 1 : tipHeight + 1;
+        String previousHash = previous != null ? previous.getHash() : tipHash;
+        Block block = new Block(data, previousHash, voterId, height, electionId, electionName);
+        blocks.add(block);
+        return block;
+    }
+
+    private void loadTip() {
+        tipStale = false;
+        Optional<BlockHeader> latest = blockRepository.findTopByOrderByBlockHeightDesc();
+        tipHeight = latest.map(BlockHeader::getBlockHeight).orElse(-1);
+        tipHash = latest.map(BlockHeader::getHash).orElse(EMPTY_CHAIN_HASH);
+        logger.info("Block sequencer tip loaded at height {}", tipHeight);
+    }
+
+    private static class PendingVote {
+        private final String voterId;
+        private final Integer electionId;
+        private final String electionName;
+        private final byte[] stegoImageData;
+        private final byte[] homomorphicBallot;
+        private final CompletableFuture<Block> receipt = new CompletableFuture<>();
+
+        // Position assigned when the vote is packed into a block
+        private int blockHeight;
+        private int entryIndex;
+
+        private PendingVote(String voterId, Integer electionId, String electionName,
+                            byte[] stegoImageData, byte[] homomorphicBallot) {
+            this.voterId = voterId;
+            this.electionId = electionId;
+            this.electionName = electionName;
+            this.stegoImageData = stegoImageData;
+            this.homomorphicBallot = homomorphicBallot;
+        }
+    }
+}
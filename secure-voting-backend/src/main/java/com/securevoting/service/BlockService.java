@@ -1,38 +1,128 @@
 package com.securevoting.service;
 
 import com.securevoting.model.Block;
+import com.securevoting.model.BlockHeader;
+import com.securevoting.model.VoteEntry;
 import com.securevoting.repository.BlockRepository;
+import com.securevoting.repository.VoteEntryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 @Service
 public class BlockService {
     
+    private static final String BLOCK_COLUMNS = "block_height, hash, previous_hash, election_id, election_name, " +
+            "voter_id, data, timestamp, nonce, merkle_root";
+    
+    @Value("${blockchain.listing.default-limit:100}")
+    private int defaultPageLimit;
+    
+    @Value("${blockchain.listing.max-limit:1000}")
+    private int maxPageLimit;
+    
     @Autowired
     private BlockRepository blockRepository;
+
+    @Autowired
+    private VoteEntryRepository voteEntryRepository;
+
+    @Autowired
+    private BlockSequencer blockSequencer;
+
+    @Autowired
+    private TallyCache tallyCache;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * One keyset page of the chain in height order. Rows are mapped straight from JDBC, so
+     * the stego images are not even read unless asked for.
+     *
+     * @param afterHeight  Return blocks above this height (-1 starts at the Genesis Block)
+     * @param limit        Page size, see {@link #pageLimit(Integer)}
+     * @param includeStego Whether to fill in stegoImageData
+     */
+    public List<Block> getBlocksPage(int afterHeight, int limit, boolean includeStego) {
+        return jdbcTemplate.query(selectBlocksAbove(includeStego) + " LIMIT ?",
+                (rs, rowNum) -> mapBlock(rs, includeStego), afterHeight, limit);
+    }
+    
+    /**
+     * @return the requested page size, or the default one, capped at blockchain.listing.max-limit
+     */
+    public int pageLimit(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return Math.min(defaultPageLimit, maxPageLimit);
+        }
+        return Math.min(requested, maxPageLimit);
+    }
     
-    public List<Block> getAllBlocks() {
-        return blockRepository.findAll();
+    /**
+     * Hands every block above a height to the sink, in height order, as rows arrive from a
+     * forward-only cursor. Only one row is held in memory at a time.
+     */
+    public void streamBlocks(int afterHeight, boolean includeStego, Consumer<Block> sink) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(selectBlocksAbove(includeStego),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Makes MySQL Connector/J stream rows instead of buffering the whole result set
+            statement.setFetchSize(Integer.MIN_VALUE);
+            statement.setInt(1, afterHeight);
+            return statement;
+        }, (RowCallbackHandler) rs -> sink.accept(mapBlock(rs, includeStego)));
+    }
+    
+    private static String selectBlocksAbove(boolean includeStego) {
+        return selectBlocks(includeStego, "block_height > ?");
+    }
+    
+    private static String selectBlocks(boolean includeStego, String condition) {
+        return "SELECT " + BLOCK_COLUMNS + (includeStego ? ", stego_image_data" : "") +
+                " FROM blocks WHERE " + condition + " ORDER BY block_height";
+    }
+    
+    private static Block mapBlock(ResultSet rs, boolean includeStego) throws SQLException {
+        Block block = new Block(rs.getInt("block_height"), rs.getString("hash"), rs.getString("previous_hash"),
+                rs.getObject("election_id", Integer.class), rs.getString("election_name"), rs.getString("voter_id"),
+                rs.getString("data"), includeStego ? rs.getBytes("stego_image_data") : null,
+                rs.getLong("timestamp"), rs.getInt("nonce"));
+        block.setMerkleRoot(rs.getString("merkle_root"));
+        return block;
     }
     
     public Optional<Block> getBlockByHeight(Integer blockHeight) {
         return blockRepository.findById(blockHeight);
     }
     
-    public List<Block> getBlocksByElection(Integer electionId) {
-        return blockRepository.findByElectionIdOrderByBlockHeightAsc(electionId);
+    // Block lists below only read the stego images when asked for, see getBlocksPage
+    public List<Block> getBlocksByElection(Integer electionId, boolean includeStego) {
+        return jdbcTemplate.query(selectBlocks(includeStego, "election_id = ?"),
+                (rs, rowNum) -> mapBlock(rs, includeStego), electionId);
     }
     
-    public List<Block> getBlocksByVoter(String voterId) {
-        return blockRepository.findByVoterIdOrderByBlockHeightAsc(voterId);
+    public List<Block> getBlocksByVoter(String voterId, boolean includeStego) {
+        return jdbcTemplate.query(selectBlocks(includeStego, "voter_id = ?"),
+                (rs, rowNum) -> mapBlock(rs, includeStego), voterId);
     }
     
+    // The tip is found on the header alone, then only that one block is loaded in full
     public Optional<Block> getLatestBlock() {
-        List<Block> latestBlocks = blockRepository.findLatestBlock();
-        return latestBlocks.isEmpty() ? Optional.empty() : Optional.of(latestBlocks.get(0));
+        return blockRepository.findTopByOrderByBlockHeightDesc()
+                .flatMap(header -> blockRepository.findById(header.getBlockHeight()));
     }
     
     public Long getTotalBlockCount() {
@@ -47,15 +137,56 @@ public class BlockService {
         return blockRepository.getBlockchainStatistics();
     }
     
+    // A multi-vote block holds several votes, so block counts undercount them
+    public Map<Integer, Long> getVoteCountsByElection() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (Object[] row : blockRepository.countVotesByElection()) {
+            counts.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+    
     public Optional<Block> getBlockByHash(String hash) {
         return blockRepository.findByHash(hash);
     }
     
-    public List<Block> getBlocksInRange(Integer startHeight, Integer endHeight) {
-        return blockRepository.findBlocksInRange(startHeight, endHeight);
+    public List<Block> getBlocksInRange(Integer startHeight, Integer endHeight, boolean includeStego) {
+        return jdbcTemplate.query(selectBlocks(includeStego, "block_height BETWEEN ? AND ?"),
+                (rs, rowNum) -> mapBlock(rs, includeStego), startHeight, endHeight);
+    }
+    
+    // Check if voter has already voted in an election, in either block format
+    public boolean hasVoted(String voterId, Integer electionId) {
+        return blockRepository.existsByVoterIdAndElectionId(voterId, electionId)
+                || voteEntryRepository.existsByVoterIdAndElectionId(voterId, electionId);
+    }
+    
+    // Resolve a voter to its vote entry, whether it has a block of its own or sits in a multi-vote block.
+    // Only the header is read, so the entry comes without its stego image.
+    public Optional<VoteEntry> findVote(String voterId, Integer electionId) {
+        Optional<BlockHeader> header = blockRepository.findByVoterIdAndElectionId(voterId, electionId);
+        if (header.isPresent()) {
+            return Optional.of(VoteEntry.fromHeader(header.get()));
+        }
+        return voteEntryRepository.findHeaderByVoterIdAndElectionId(voterId, electionId);
+    }
+    
+    // Get the votes carried by a block (none for the Genesis Block)
+    public List<VoteEntry> getVoteEntries(Block block) {
+        if ("SYSTEM".equals(block.getVoterId())) {
+            return Collections.emptyList();
+        }
+        if (block.isMultiVote()) {
+            return voteEntryRepository.findByBlockHeightOrderByEntryIndexAsc(block.getBlockHeight());
+        }
+        return Collections.singletonList(VoteEntry.fromBlock(block));
     }
     
     public Block saveBlock(Block block) {
-        return blockRepository.save(block);
+        Block saved = blockRepository.save(block);
+        // Written outside the sequencer, so its cached chain tip is stale
+        blockSequencer.resetTip();
+        tallyCache.blocksAppended(saved.getBlockHeight(), Collections.singleton(saved.getElectionId()));
+        return saved;
     }
 }
@@ -1,8 +1,8 @@
 package com.securevoting.service;
 
-import com.google.gson.Gson;
 import com.securevoting.model.Block;
 import com.securevoting.model.User;
+import com.securevoting.model.VoteEntry;
 import com.securevoting.repository.BlockRepository;
 import com.securevoting.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +12,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class BlockchainService {
@@ -25,38 +26,29 @@ public class BlockchainService {
     @Autowired
     private UnifiedCryptoService cryptoService;
 
+    @Autowired
+    private BlockService blockService;
+
+    @Autowired
+    private TallyEngine tallyEngine;
+
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
-    public List<Block> getBlockchain() {
-        return blockRepository.findAll();
+    /**
+     * @return one keyset page of the chain, see {@link BlockService#getBlocksPage}
+     */
+    public List<Block> getBlockchain(int afterHeight, int limit, boolean includeStego) {
+        return blockService.getBlocksPage(afterHeight, limit, includeStego);
     }
 
-    public Map<String, Map<String, Integer>> tallyVotes() {
-        List<Block> blocks = blockRepository.findAll();
-        Map<String, Map<String, Integer>> electionResults = new HashMap<>();
-
-        for (Block block : blocks) {
-            if ("SYSTEM".equals(block.getVoterId())) {
-                continue; // Skip Genesis Block
-            }
-
-            try {
-                String decryptedVoteJson = cryptoService.decryptVote(block.getStegoImageData());
-                Gson gson = new Gson();
-                Map<String, Object> voteMap = gson.fromJson(decryptedVoteJson, Map.class);
-                String electionName = (String) voteMap.get("electionName");
-                String vote = (String) voteMap.get("voteData");
+    public void streamBlockchain(int afterHeight, boolean includeStego, Consumer<Block> sink) {
+        blockService.streamBlocks(afterHeight, includeStego, sink);
+    }
 
-                electionResults
-                        .computeIfAbsent(electionName, k -> new HashMap<>())
-                        .merge(vote, 1, Integer::sum);
-            } catch (Exception e) {
-                System.err.println("Could not process vote from block " + block.getBlockHeight() + ". Error: " + e.getMessage());
-            }
-        }
-        return electionResults;
+    public Map<String, Map<String, Integer>> tallyVotes() {
+        return tallyEngine.tallyAll();
     }
 
     public String decryptVote(int blockHeight) {
@@ -69,6 +61,14 @@ public class BlockchainService {
             return "This is the Genesis Block. It contains no vote data.";
         }
         try {
+            if (block.isMultiVote()) {
+                // One decrypted vote per line, in Merkle leaf order
+                StringBuilder votes = new StringBuilder();
+                for (VoteEntry entry : blockService.getVoteEntries(block)) {
+                    votes.append(cryptoService.decryptVote(entry.getStegoImageData())).append('\n');
+                }
+                return votes.toString();
+            }
             return cryptoService.decryptVote(block.getStegoImageData());
         } catch (Exception e) {
             return "Decryption failed: " + e.getMessage();
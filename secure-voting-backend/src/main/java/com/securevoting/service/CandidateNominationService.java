@@ -33,6 +33,9 @@ public class CandidateNominationService {
     @Autowired
     private ElectionRepository electionRepository;
 
+    @Autowired
+    private TallyCache tallyCache;
+
     public Candidate submitNomination(CandidateNominationRequest request) {
         // Validate election exists and is active
         Optional<Election> electionOpt = electionRepository.findById(request.getElectionId());
@@ -93,6 +96,7 @@ public class CandidateNominationService {
 
         // Save candidate
         Candidate savedCandidate = candidateRepository.save(candidate);
+        tallyCache.invalidateAllAfterCommit();
 
         // Create candidate details with personal information
         CandidateDetails candidateDetails = new CandidateDetails();
@@ -3,13 +3,10 @@ package com.securevoting.service;
 import com.securevoting.model.Candidate;
 import com.securevoting.model.CandidateDetails;
 import com.securevoting.model.CandidateStatus;
-import com.securevoting.model.Block;
 import com.securevoting.payload.request.CreateCandidateRequest;
 import com.securevoting.payload.request.UpdateCandidateRequest;
 import com.securevoting.repository.CandidateRepository;
 import com.securevoting.repository.CandidateDetailsRepository;
-import com.securevoting.repository.BlockRepository;
-import com.google.gson.Gson;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,10 +26,10 @@ public class CandidateService {
     private CandidateDetailsRepository candidateDetailsRepository;
 
     @Autowired
-    private BlockRepository blockRepository;
+    private TallyCache tallyCache;
 
     @Autowired
-    private UnifiedCryptoService cryptoService;
+    private TallyEngine tallyEngine;
 
     // Get all candidates
     public List<Candidate> getAllCandidates() {
@@ -150,6 +147,8 @@ public class CandidateService {
         candidate.setWardId(request.getWardId());
         
         Candidate savedCandidate = candidateRepository.save(candidate);
+        // Tallies match legacy name-only votes against the election's candidates
+        tallyCache.invalidateAllAfterCommit();
         
         // Create candidate details if provided
         if (request.getBiography() != null || request.getManifestoSummary() != null) {
@@ -180,6 +179,8 @@ public class CandidateService {
         candidate.setWardId(request.getWardId());
         
         Candidate savedCandidate = candidateRepository.save(candidate);
+        // Cached tallies carry the old name and election
+        tallyCache.invalidateAllAfterCommit();
         
         // Update candidate details if they exist
         // We only update existing candidateDetails to avoid constraint violations
@@ -361,6 +362,7 @@ public class CandidateService {
         candidateDetailsRepository.deleteByCandidateId(candidateId);
         // Delete candidate
         candidateRepository.deleteById(candidateId);
+        tallyCache.invalidateAllAfterCommit();
     }
 
     // Check if candidate exists in election
@@ -385,30 +387,10 @@ public class CandidateService {
             voteCounts.put(candidate.getName(), 0);
         }
         
-        // Get all blocks for this election
-        List<Block> blocks = blockRepository.findByElectionIdOrderByBlockHeightAsc(electionId);
-        
-        // Process each vote block
-        for (Block block : blocks) {
-            if ("SYSTEM".equals(block.getVoterId())) {
-                continue; // Skip Genesis Block
-            }
-            
-            try {
-                // Decrypt the vote data
-                String decryptedVoteJson = cryptoService.decryptVote(block.getStegoImageData());
-                Gson gson = new Gson();
-                @SuppressWarnings("unchecked")
-                Map<String, Object> voteMap = gson.fromJson(decryptedVoteJson, Map.class);
-                String voteData = (String) voteMap.get("voteData");
-                
-                // Increment vote count for the voted candidate
-                if (voteData != null && voteCounts.containsKey(voteData)) {
-                    voteCounts.put(voteData, voteCounts.get(voteData) + 1);
-                }
-            } catch (Exception e) {
-                System.err.println("Could not process vote from block " + block.getBlockHeight() + ". Error: " + e.getMessage());
-            }
+        // Count this election's votes by candidate id and name them here, so renamed candidates keep their votes
+        Map<Integer, Integer> byCandidate = tallyEngine.tallyElectionByCandidate(electionId);
+        for (Candidate candidate : candidates) {
+            voteCounts.merge(candidate.getName(), byCandidate.getOrDefault(candidate.getCandidateId(), 0), Integer::sum);
         }
         
         return voteCounts;
@@ -0,0 +1,152 @@
+package com.securevoting.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyAgreement;
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-thread cached JCA engine instances and a shared DRBG for the crypto services.
+ *
+ * getInstance walks the provider list and, for BouncyCastle, reflectively builds the
+ * SPI on every call, which serializes on provider locks under load. Instances here are
+ * created once per thread and (algorithm, provider) and handed out again on later calls.
+ *
+ * Callers must initialize Cipher, Mac, KeyAgreement, Signature, KeyGenerator and
+ * KeyPairGenerator instances before each use, which fully resets them; MessageDigest
+ * instances are returned reset. An instance must not be held across a call that may
+ * ask for the same primitive on the same thread.
+ */
+public final class CryptoPrimitives {
+
+    private static final Logger logger = LoggerFactory.getLogger(CryptoPrimitives.class);
+
+    private static final SecureRandom SECURE_RANDOM = createDrbg();
+
+    private static final Cache<Cipher> CIPHERS =
+            new Cache<>((algorithm, provider) -> provider == null
+                    ? Cipher.getInstance(algorithm) : Cipher.getInstance(algorithm, provider));
+    private static final Cache<MessageDigest> DIGESTS =
+            new Cache<>((algorithm, provider) -> provider == null
+                    ? MessageDigest.getInstance(algorithm) : MessageDigest.getInstance(algorithm, provider));
+    private static final Cache<Mac> MACS =
+            new Cache<>((algorithm, provider) -> provider == null
+                    ? Mac.getInstance(algorithm) : Mac.getInstance(algorithm, provider));
+    private static final Cache<KeyFactory> KEY_FACTORIES =
+            new Cache<>((algorithm, provider) -> provider == null
+                    ? KeyFactory.getInstance(algorithm) : KeyFactory.getInstance(algorithm, provider));
+    private static final Cache<KeyAgreement> KEY_AGREEMENTS =
+            new Cache<>((algorithm, provider) -> provider == null
+                    ? KeyAgreement.getInstance(algorithm) : KeyAgreement.getInstance(algorithm, provider));
+    private static final Cache<Signature> SIGNATURES =
+            new Cache<>((algorithm, provider) -> provider == null
+                    ? Signature.getInstance(algorithm) : Signature.getInstance(algorithm, provider));
+    private static final Cache<KeyGenerator> KEY_GENERATORS =
+            new Cache<>((algorithm, provider) -> provider == null
+                    ? KeyGenerator.getInstance(algorithm) : KeyGenerator.getInstance(algorithm, provider));
+    private static final Cache<KeyPairGenerator> KEY_PAIR_GENERATORS =
+            new Cache<>((algorithm, provider) -> provider == null
+                    ? KeyPairGenerator.getInstance(algorithm) : KeyPairGenerator.getInstance(algorithm, provider));
+
+    private CryptoPrimitives() {
+    }
+
+    /**
+     * @return the shared, thread-safe DRBG for IVs, nonces and key generation
+     */
+    public static SecureRandom secureRandom() {
+        return SECURE_RANDOM;
+    }
+
+    public static Cipher cipher(String transformation, String provider) throws GeneralSecurityException {
+        return CIPHERS.get(transformation, provider);
+    }
+
+    public static MessageDigest messageDigest(String algorithm) throws GeneralSecurityException {
+        return messageDigest(algorithm, null);
+    }
+
+    public static MessageDigest messageDigest(String algorithm, String provider) throws GeneralSecurityException {
+        MessageDigest digest = DIGESTS.get(algorithm, provider);
+        digest.reset();
+        return digest;
+    }
+
+    public static Mac mac(String algorithm) throws GeneralSecurityException {
+        return MACS.get(algorithm, null);
+    }
+
+    public static KeyFactory keyFactory(String algorithm, String provider) throws GeneralSecurityException {
+        return KEY_FACTORIES.get(algorithm, provider);
+    }
+
+    public static KeyAgreement keyAgreement(String algorithm, String provider) throws GeneralSecurityException {
+        return KEY_AGREEMENTS.get(algorithm, provider);
+    }
+
+    public static Signature signature(String algorithm, String provider) throws GeneralSecurityException {
+        return SIGNATURES.get(algorithm, provider);
+    }
+
+    public static KeyGenerator keyGenerator(String algorithm, String provider) throws GeneralSecurityException {
+        return KEY_GENERATORS.get(algorithm, provider);
+    }
+
+    public static KeyPairGenerator keyPairGenerator(String algorithm, String provider) throws GeneralSecurityException {
+        return KEY_PAIR_GENERATORS.get(algorithm, provider);
+    }
+
+    private static SecureRandom createDrbg() {
+        try {
+            // Hash_DRBG seeded from the platform entropy source, reseeded on request
+            SecureRandom drbg = SecureRandom.getInstance("DRBG", DrbgParameters.instantiation(256,
+                    DrbgParameters.Capability.RESEED_ONLY, "secure-voting".getBytes(StandardCharsets.UTF_8)));
+            DrbgParameters.Instantiation parameters = (DrbgParameters.Instantiation) drbg.getParameters();
+            logger.info("Crypto primitives using shared {} with {}-bit strength ({})", drbg.getAlgorithm(),
+                    parameters.getStrength(), drbg);
+            return drbg;
+        } catch (NoSuchAlgorithmException e) {
+            logger.warn("DRBG not available ({}), using default SecureRandom", e.getMessage());
+            return new SecureRandom();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Factory<T> {
+        T create(String algorithm, String provider) throws GeneralSecurityException;
+    }
+
+    private static final class Cache<T> {
+        private final ThreadLocal<Map<String, T>> instances = ThreadLocal.withInitial(HashMap::new);
+        private final Factory<T> factory;
+
+        Cache(Factory<T> factory) {
+            this.factory = factory;
+        }
+
+        T get(String algorithm, String provider) throws GeneralSecurityException {
+            Map<String, T> cache = instances.get();
+            String key = provider == null ? algorithm : algorithm + '@' + provider;
+            T instance = cache.get(key);
+            if (instance == null) {
+                instance = factory.create(algorithm, provider);
+                cache.put(key, instance);
+            }
+            return instance;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.securevoting.service;
 
-import com.google.gson.Gson;
 import com.securevoting.dto.VotePayload;
+import com.securevoting.dto.VotePayloadCodec;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.crypto.Cipher;
 import javax.crypto.KeyAgreement;
 import javax.crypto.SecretKey;
@@ -22,6 +24,8 @@ import java.security.spec.ECGenParameterSpec;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
 
 @Service
 public class CryptoService {
@@ -29,7 +33,6 @@ public class CryptoService {
     private static final String ELLIPTIC_CURVE_ALGORITHM = "EC";
     private static final String KEY_AGREEMENT_ALGORITHM = "ECDH";
     private static final String SYMMETRIC_ALGORITHM = "AES";
-    private static final String SYMMETRIC_TRANSFORMATION = "AES/GCM/NoPadding";
     private static final String HASH_ALGORITHM = "SHA-256";
     private static final String CURVE_NAME = "secp256r1";
     private static final int GCM_IV_LENGTH_BYTES = 12;
@@ -44,6 +47,21 @@ public class CryptoService {
     @Autowired
     private SteganographyService steganographyService;
 
+    @Autowired
+    private SymmetricProviderPolicy symmetricProviderPolicy;
+
+    // Pre-generated single-use ephemeral key pairs, so ECDH keeps up when quantum modes fail over
+    @Value("${crypto.ecdh.pool.enabled:true}")
+    private boolean ephemeralKeyPoolEnabled;
+
+    @Value("${crypto.ecdh.pool.low-watermark:16}")
+    private int ephemeralKeyPoolLowWatermark;
+
+    @Value("${crypto.ecdh.pool.high-watermark:64}")
+    private int ephemeralKeyPoolHighWatermark;
+
+    private KeyPairPool ephemeralKeyPool;
+
     @PostConstruct
     public void init() throws Exception {
         Security.addProvider(new BouncyCastleProvider());
@@ -68,6 +86,26 @@ public class CryptoService {
             authorityKeyPair = generateEccKeyPair();
             saveKeys();
         }
+
+        if (ephemeralKeyPoolEnabled) {
+            ephemeralKeyPool = new KeyPairPool("ECDH-" + CURVE_NAME, this::generateEccKeyPair,
+                    ephemeralKeyPoolLowWatermark, ephemeralKeyPoolHighWatermark);
+            ephemeralKeyPool.start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ephemeralKeyPool != null) {
+            ephemeralKeyPool.shutdown();
+        }
+    }
+
+    /**
+     * @return ephemeral key pool depth and starvation metrics, empty if the pool is disabled
+     */
+    public Map<String, Object> getEphemeralKeyPoolMetrics() {
+        return ephemeralKeyPool != null ? ephemeralKeyPool.getMetrics() : Collections.emptyMap();
     }
 
     private void saveKeys() throws IOException {
@@ -86,16 +124,29 @@ public class CryptoService {
      * 3. AES-GCM encryption of vote data
      */
     public String encryptVote(String voteJson) throws Exception {
+        String jsonResult = VotePayloadCodec.toJson(encryptPayload(voteJson));
+        
+        System.out.println("EncryptVote - JSON Result: " + jsonResult);
+        System.out.println("EncryptVote - JSON Length: " + jsonResult.length());
+        
+        return jsonResult;
+    }
+
+    /**
+     * Same as {@link #encryptVote(String)}, returning the payload object so callers can
+     * choose its wire format.
+     */
+    public VotePayload encryptPayload(String voteJson) throws Exception {
         System.out.println("=== VOTE ENCRYPTION PROCESS ===");
         
         // Step 1: ECC Key Agreement (ECDH)
         PublicKey authorityPublicKey = authorityKeyPair.getPublic();
-        KeyPair ephemeralKeyPair = generateEccKeyPair();
+        KeyPair ephemeralKeyPair = ephemeralKeyPool != null ? ephemeralKeyPool.take() : generateEccKeyPair();
         PublicKey ephemeralPublicKey = ephemeralKeyPair.getPublic();
         PrivateKey ephemeralPrivateKey = ephemeralKeyPair.getPrivate();
         System.out.println("ECC - Temperory Key pair has been generated");
 
-        KeyAgreement keyAgreement = KeyAgreement.getInstance(KEY_AGREEMENT_ALGORITHM, PROVIDER);
+        KeyAgreement keyAgreement = CryptoPrimitives.keyAgreement(KEY_AGREEMENT_ALGORITHM, PROVIDER);
         keyAgreement.init(ephemeralPrivateKey);
         keyAgreement.doPhase(authorityPublicKey, true);
         byte[] sharedSecret = keyAgreement.generateSecret();
@@ -103,16 +154,16 @@ public class CryptoService {
         System.out.println("Successfully created shared secret via ECDH");
 
         // Step 2: AES-GCM Key Derivation (SHA-256)
-        MessageDigest hash = MessageDigest.getInstance(HASH_ALGORITHM, PROVIDER);
+        MessageDigest hash = CryptoPrimitives.messageDigest(HASH_ALGORITHM, PROVIDER);
         byte[] derivedKey = hash.digest(sharedSecret);
         SecretKey aesKey = new SecretKeySpec(derivedKey, 0, 32, SYMMETRIC_ALGORITHM);
         
         System.out.println("Successfully converted secure_secret_key into AES key using SHA-256");
 
         // Step 3: AES-GCM Encryption
-        Cipher aesCipher = Cipher.getInstance(SYMMETRIC_TRANSFORMATION, PROVIDER);
+        Cipher aesCipher = symmetricProviderPolicy.aesGcmCipher();
         byte[] iv = new byte[GCM_IV_LENGTH_BYTES];
-        new SecureRandom().nextBytes(iv);
+        CryptoPrimitives.secureRandom().nextBytes(iv);
         GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv);
         aesCipher.init(Cipher.ENCRYPT_MODE, aesKey, parameterSpec);
         byte[] cipherText = aesCipher.doFinal(voteJson.getBytes());
@@ -132,19 +183,13 @@ public class CryptoService {
         payload.setCipherText(cipherTextB64);
         payload.setHmac(null); // HMAC will be added by qq.java wrapper
         
-        Gson gson = new Gson();
-        String jsonResult = gson.toJson(payload);
-        
-        System.out.println("EncryptVote - JSON Result: " + jsonResult);
-        System.out.println("EncryptVote - JSON Length: " + jsonResult.length());
-        
-        return jsonResult;
+        return payload;
     }
 
     /**
      * Decrypts a vote using hybrid cryptography:
      * 1. Extract data from steganographic image
-     * 2. Parse JSON VotePayload
+     * 2. Parse the VotePayload (binary or legacy JSON)
      * 3. Reconstruct ephemeral public key
      * 4. ECC Key Agreement (ECDH) to recreate shared secret
      * 5. AES-GCM Key Derivation using SHA-256
@@ -155,17 +200,22 @@ public class CryptoService {
         
         // Step 1: Extract the encrypted payload from the steganographic image
         byte[] extractedData = steganographyService.extractData(stegoImageData);
-        String extractedString = new String(extractedData);
         
-        System.out.println("Extracted data length: " + extractedString.length());
-        System.out.println("First 100 chars: " + extractedString.substring(0, Math.min(100, extractedString.length())));
+        System.out.println("Extracted data length: " + extractedData.length);
         
-        // Step 2: Parse the JSON VotePayload
-        Gson gson = new Gson();
-        VotePayload payload = gson.fromJson(extractedString, VotePayload.class);
+        // Step 2: Parse the VotePayload
+        VotePayload payload = VotePayloadCodec.parse(extractedData);
         
-        System.out.println("Successfully parsed VotePayload JSON");
+        System.out.println("Successfully parsed VotePayload (" +
+                (VotePayloadCodec.isBinary(extractedData) ? "binary" : "JSON") + ")");
         
+        return decryptPayload(payload);
+    }
+
+    /**
+     * Decrypts an already extracted ECDH VotePayload (steps 3-7 of {@link #decryptVote(byte[])}).
+     */
+    public String decryptPayload(VotePayload payload) throws Exception {
         // Step 3: Decode Base64 components
         byte[] ephemeralPublicKeyBytes = Base64.getDecoder().decode(payload.getEphemeralPublicKey());
         byte[] iv = Base64.getDecoder().decode(payload.getIv());
@@ -177,14 +227,14 @@ public class CryptoService {
         
         // Step 4: Reconstruct the ephemeral public key (X.509 format)
         X509EncodedKeySpec keySpec = new X509EncodedKeySpec(ephemeralPublicKeyBytes);
-        KeyFactory keyFactory = KeyFactory.getInstance(ELLIPTIC_CURVE_ALGORITHM, PROVIDER);
+        KeyFactory keyFactory = CryptoPrimitives.keyFactory(ELLIPTIC_CURVE_ALGORITHM, PROVIDER);
         PublicKey ephemeralPublicKey = keyFactory.generatePublic(keySpec);
         
         System.out.println("Successfully reconstructed ephemeral public key");
         
         // Step 5: ECC Key Agreement (ECDH) - Recreate shared secret
         PrivateKey authorityPrivateKey = authorityKeyPair.getPrivate();
-        KeyAgreement keyAgreement = KeyAgreement.getInstance(KEY_AGREEMENT_ALGORITHM, PROVIDER);
+        KeyAgreement keyAgreement = CryptoPrimitives.keyAgreement(KEY_AGREEMENT_ALGORITHM, PROVIDER);
         keyAgreement.init(authorityPrivateKey);
         keyAgreement.doPhase(ephemeralPublicKey, true);
         byte[] sharedSecret = keyAgreement.generateSecret();
@@ -192,14 +242,14 @@ public class CryptoService {
         System.out.println("Successfully recreated shared secret");
         
         // Step 6: AES-GCM Key Derivation (SHA-256)
-        MessageDigest hash = MessageDigest.getInstance(HASH_ALGORITHM, PROVIDER);
+        MessageDigest hash = CryptoPrimitives.messageDigest(HASH_ALGORITHM, PROVIDER);
         byte[] derivedKey = hash.digest(sharedSecret);
         SecretKey aesKey = new SecretKeySpec(derivedKey, 0, 32, SYMMETRIC_ALGORITHM);
         
         System.out.println("Successfully derived AES key");
         
         // Step 7: AES-GCM Decryption
-        Cipher aesCipher = Cipher.getInstance(SYMMETRIC_TRANSFORMATION, PROVIDER);
+        Cipher aesCipher = symmetricProviderPolicy.aesGcmCipher();
         GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv);
         aesCipher.init(Cipher.DECRYPT_MODE, aesKey, parameterSpec);
         byte[] decryptedVote = aesCipher.doFinal(cipherText);
@@ -210,10 +260,10 @@ public class CryptoService {
         return voteJson;
     }
 
-    private KeyPair generateEccKeyPair() throws NoSuchAlgorithmException, InvalidAlgorithmParameterException, NoSuchProviderException {
-        KeyPairGenerator keyGen = KeyPairGenerator.getInstance(ELLIPTIC_CURVE_ALGORITHM, PROVIDER);
+    private KeyPair generateEccKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator keyGen = CryptoPrimitives.keyPairGenerator(ELLIPTIC_CURVE_ALGORITHM, PROVIDER);
         ECGenParameterSpec ecSpec = new ECGenParameterSpec(CURVE_NAME);
-        keyGen.initialize(ecSpec, new SecureRandom());
+        keyGen.initialize(ecSpec, CryptoPrimitives.secureRandom());
         return keyGen.generateKeyPair();
     }
 }
\ No newline at end of file
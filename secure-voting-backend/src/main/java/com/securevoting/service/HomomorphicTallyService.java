@@ -0,0 +1,391 @@
+package com.securevoting.service;
+
+import com.securevoting.model.Candidate;
+import com.securevoting.model.HomomorphicTally;
+import com.securevoting.repository.CandidateRepository;
+import com.securevoting.repository.HomomorphicTallyRepository;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.interfaces.ECPrivateKey;
+import org.bouncycastle.jce.interfaces.ECPublicKey;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jce.spec.ECNamedCurveParameterSpec;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECMultiplier;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.util.BigIntegers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Additively homomorphic tally: exponential ElGamal on secp256r1.
+ *
+ * With {@code tally.homomorphic.enabled}, every vote also carries an encrypted one-hot
+ * vector over the election's candidates, each component (rG, mG + rQ) with m = 1 for the
+ * chosen candidate and 0 otherwise. The block sequencer adds each committed ballot into
+ * the election's {@link HomomorphicTally} (two point additions per candidate), and a
+ * tally decrypts only that aggregate: mG = C2 - xC1, then m by baby-step giant-step,
+ * which is cheap because m never exceeds the number of ballots.
+ *
+ * Ballots are built here from a candidate id the vote path has already validated, so no
+ * proofs that each component is 0 or 1 are attached. The authority key is separate
+ * from the {@link CryptoService} envelope key.
+ */
+@Service
+public class HomomorphicTallyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HomomorphicTallyService.class);
+
+    private static final String ELLIPTIC_CURVE_ALGORITHM = "EC";
+    private static final String CURVE_NAME = "secp256r1";
+    private static final String PROVIDER = BouncyCastleProvider.PROVIDER_NAME;
+
+    private static final String PUBLIC_KEY_FILE = "homomorphic_authority_public.key";
+    private static final String PRIVATE_KEY_FILE = "homomorphic_authority_private.key";
+
+    private static final String INSERT_BALLOT_SQL =
+            "INSERT INTO homomorphic_ballots (block_height, entry_index, election_id, ballot) VALUES (?, ?, ?, ?)";
+    private static final String UPSERT_TALLY_SQL =
+            "INSERT INTO homomorphic_tallies (election_id, election_name, ciphertext, ballots, last_block_height, " +
+            "updated_at) VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE election_name = VALUES(election_name), " +
+            "ciphertext = VALUES(ciphertext), ballots = VALUES(ballots), " +
+            "last_block_height = VALUES(last_block_height), updated_at = VALUES(updated_at)";
+
+    @Value("${tally.homomorphic.enabled:false}")
+    private boolean enabled;
+
+    @Autowired
+    private CandidateRepository candidateRepository;
+
+    @Autowired
+    private HomomorphicTallyRepository tallyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ECMultiplier generatorMultiplier = new FixedPointCombMultiplier();
+    private ECCurve curve;
+    private ECPoint generator;
+    private BigInteger order;
+    private ECPoint authorityKey;
+    private BigInteger authoritySecret;
+
+    // Aggregates as of the last committed batch - only used on the block committer thread
+    private final Map<Integer, Aggregate> aggregates = new HashMap<>();
+
+    @PostConstruct
+    public void init() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        Security.addProvider(new BouncyCastleProvider());
+        ECNamedCurveParameterSpec spec = ECNamedCurveTable.getParameterSpec(CURVE_NAME);
+        curve = spec.getCurve();
+        generator = spec.getG();
+        order = spec.getN();
+
+        KeyPair keyPair = loadOrGenerateKeyPair();
+        authorityKey = curve.importPoint(((ECPublicKey) keyPair.getPublic()).getQ()).normalize();
+        authoritySecret = ((ECPrivateKey) keyPair.getPrivate()).getD();
+        logger.info("Homomorphic tally enabled on {}", CURVE_NAME);
+    }
+
+    private KeyPair loadOrGenerateKeyPair() throws GeneralSecurityException, IOException {
+        File privateKeyFile = new File(PRIVATE_KEY_FILE);
+        File publicKeyFile = new File(PUBLIC_KEY_FILE);
+
+        if (privateKeyFile.exists() && publicKeyFile.exists()) {
+            KeyFactory keyFactory = KeyFactory.getInstance(ELLIPTIC_CURVE_ALGORITHM, PROVIDER);
+            return new KeyPair(
+                    keyFactory.generatePublic(new X509EncodedKeySpec(Files.readAllBytes(Paths.get(PUBLIC_KEY_FILE)))),
+                    keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Files.readAllBytes(Paths.get(PRIVATE_KEY_FILE)))));
+        }
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(ELLIPTIC_CURVE_ALGORITHM, PROVIDER);
+        keyPairGenerator.initialize(new ECGenParameterSpec(CURVE_NAME), CryptoPrimitives.secureRandom());
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        try (FileOutputStream privateKeyOut = new FileOutputStream(PRIVATE_KEY_FILE);
+             FileOutputStream publicKeyOut = new FileOutputStream(PUBLIC_KEY_FILE)) {
+            privateKeyOut.write(keyPair.getPrivate().getEncoded());
+            publicKeyOut.write(keyPair.getPublic().getEncoded());
+        }
+        return keyPair;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Encrypts a one-hot vector over the election's candidates.
+     *
+     * @param candidateId The chosen candidate; a candidate outside the election encodes
+     *                    an all-zero vector that counts as a ballot for no one
+     * @return the encoded ballot, or null if the homomorphic tally is disabled
+     */
+    public byte[] encryptBallot(int electionId, Integer candidateId) {
+        if (!enabled) {
+            return null;
+        }
+        return encryptBallot(candidateRepository.findByElectionId(electionId), candidateId);
+    }
+
+    /**
+     * Same as {@link #encryptBallot(int, Integer)} over candidates the caller already loaded.
+     *
+     * @param candidates All candidates of the election
+     */
+    public byte[] encryptBallot(List<Candidate> candidates, Integer candidateId) {
+        if (!enabled) {
+            return null;
+        }
+        List<Integer> candidateIds = candidates.stream()
+                .map(Candidate::getCandidateId)
+                .sorted()
+                .collect(Collectors.toList());
+
+        Map<Integer, ECPoint[]> components = new LinkedHashMap<>();
+        for (Integer id : candidateIds) {
+            components.put(id, encrypt(id.equals(candidateId)));
+        }
+        return encode(components);
+    }
+
+    private ECPoint[] encrypt(boolean chosen) {
+        BigInteger r = BigIntegers.createRandomInRange(BigInteger.ONE, order.subtract(BigInteger.ONE),
+                CryptoPrimitives.secureRandom());
+        ECPoint c1 = generatorMultiplier.multiply(generator, r);
+        ECPoint c2 = authorityKey.multiply(r);
+        if (chosen) {
+            c2 = c2.add(generator);
+        }
+        return new ECPoint[]{c1, c2};
+    }
+
+    /**
+     * Stores the ballots of a batch and adds them into their elections' aggregates. Must
+     * run inside the batch transaction; the cached aggregates only move on once it commits.
+     */
+    public void record(List<BallotRecord> ballots) {
+        jdbcTemplate.batchUpdate(INSERT_BALLOT_SQL, ballots, ballots.size(), (ps, ballot) -> {
+            ps.setInt(1, ballot.blockHeight);
+            ps.setInt(2, ballot.entryIndex);
+            ps.setInt(3, ballot.electionId);
+            ps.setBytes(4, ballot.ballot);
+        });
+
+        Map<Integer, Aggregate> updated = new LinkedHashMap<>();
+        for (BallotRecord ballot : ballots) {
+            updated.computeIfAbsent(ballot.electionId, id -> new Aggregate(aggregate(id)))
+                    .add(decode(ballot.ballot), ballot.blockHeight, ballot.electionName);
+        }
+
+        long now = System.currentTimeMillis();
+        jdbcTemplate.batchUpdate(UPSERT_TALLY_SQL, updated.entrySet(), updated.size(), (ps, entry) -> {
+            Aggregate aggregate = entry.getValue();
+            ps.setInt(1, entry.getKey());
+            ps.setString(2, aggregate.electionName);
+            ps.setBytes(3, encode(aggregate.sums));
+            ps.setLong(4, aggregate.ballots);
+            ps.setInt(5, aggregate.lastBlockHeight);
+            ps.setLong(6, now);
+        });
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    aggregates.putAll(updated);
+                }
+            }
+        });
+    }
+
+    private Aggregate aggregate(int electionId) {
+        return aggregates.computeIfAbsent(electionId, id -> tallyRepository.findById(id)
+                .map(tally -> new Aggregate(tally.getElectionName(), decode(tally.getCiphertext()),
+                        tally.getBallots(), tally.getLastBlockHeight()))
+                .orElseGet(() -> new Aggregate(null, new LinkedHashMap<>(), 0, -1)));
+    }
+
+    /**
+     * @return the election's encrypted aggregate, empty if there is none or the
+     *         homomorphic tally is disabled
+     */
+    public Optional<HomomorphicTally> findTally(int electionId) {
+        return enabled ? tallyRepository.findById(electionId) : Optional.empty();
+    }
+
+    /**
+     * Decrypts an aggregate with the authority key.
+     *
+     * @return vote count by candidate id
+     */
+    public Map<Integer, Integer> decrypt(HomomorphicTally tally) {
+        long start = System.nanoTime();
+        Map<Integer, ECPoint[]> sums = decode(tally.getCiphertext());
+        DiscreteLog discreteLog = new DiscreteLog(tally.getBallots());
+
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        sums.forEach((candidateId, sum) ->
+                counts.put(candidateId, discreteLog.solve(sum[1].subtract(sum[0].multiply(authoritySecret)))));
+        logger.info("Decrypted homomorphic tally of election {}: {} ballots, {} candidates in {} ms",
+                tally.getElectionId(), tally.getBallots(), counts.size(), (System.nanoTime() - start) / 1_000_000);
+        return counts;
+    }
+
+    // Ballot and aggregate encoding: count, then per candidate its id and C1, C2 as compressed points
+    private static byte[] encode(Map<Integer, ECPoint[]> components) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + components.size() * 72);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(components.size());
+            for (Map.Entry<Integer, ECPoint[]> component : components.entrySet()) {
+                out.writeInt(component.getKey());
+                for (ECPoint point : component.getValue()) {
+                    byte[] encoded = point.getEncoded(true);
+                    out.writeByte(encoded.length);
+                    out.write(encoded);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Map<Integer, ECPoint[]> decode(byte[] encoded) {
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+        int size = in.getInt();
+        Map<Integer, ECPoint[]> components = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            int candidateId = in.getInt();
+            components.put(candidateId, new ECPoint[]{decodePoint(in), decodePoint(in)});
+        }
+        return components;
+    }
+
+    private ECPoint decodePoint(ByteBuffer in) {
+        byte[] point = new byte[in.get() & 0xFF];
+        in.get(point);
+        return curve.decodePoint(point);
+    }
+
+    /**
+     * A ballot committed at (block height, entry index), to be added to its election's aggregate.
+     */
+    public static final class BallotRecord {
+        private final int blockHeight;
+        private final int entryIndex;
+        private final int electionId;
+        private final String electionName;
+        private final byte[] ballot;
+
+        public BallotRecord(int blockHeight, int entryIndex, int electionId, String electionName, byte[] ballot) {
+            this.blockHeight = blockHeight;
+            this.entryIndex = entryIndex;
+            this.electionId = electionId;
+            this.electionName = electionName;
+            this.ballot = ballot;
+        }
+    }
+
+    // Decoded running sums of one election; a copy is updated per batch so a rollback leaves the cache intact
+    private static final class Aggregate {
+        private final Map<Integer, ECPoint[]> sums;
+        private String electionName;
+        private long ballots;
+        private int lastBlockHeight;
+
+        private Aggregate(String electionName, Map<Integer, ECPoint[]> sums, long ballots, int lastBlockHeight) {
+            this.electionName = electionName;
+            this.sums = sums;
+            this.ballots = ballots;
+            this.lastBlockHeight = lastBlockHeight;
+        }
+
+        private Aggregate(Aggregate committed) {
+            this(committed.electionName, new LinkedHashMap<>(committed.sums), committed.ballots,
+                    committed.lastBlockHeight);
+        }
+
+        // Candidates added after earlier ballots were cast simply start from this ballot
+        private void add(Map<Integer, ECPoint[]> ballot, int blockHeight, String electionName) {
+            ballot.forEach((candidateId, component) -> sums.merge(candidateId, component,
+                    (sum, c) -> new ECPoint[]{sum[0].add(c[0]), sum[1].add(c[1])}));
+            ballots++;
+            lastBlockHeight = Math.max(lastBlockHeight, blockHeight);
+            this.electionName = electionName;
+        }
+    }
+
+    /**
+     * Baby-step giant-step for m in [0, bound] with mG = M: a table of jG for j below
+     * ceil(sqrt(bound + 1)), then M - i * stride * G is looked up for increasing i.
+     */
+    private final class DiscreteLog {
+        private final Map<ByteBuffer, Integer> babySteps = new HashMap<>();
+        private final int stride;
+        private final ECPoint giantStep;
+
+        private DiscreteLog(long bound) {
+            stride = (int) Math.ceil(Math.sqrt(bound + 1.0));
+            ECPoint[] points = new ECPoint[stride];
+            ECPoint point = curve.getInfinity();
+            for (int j = 0; j < stride; j++) {
+                points[j] = point;
+                point = point.add(generator);
+            }
+            // One field inversion for the whole table instead of one per point
+            curve.normalizeAll(points);
+            for (int j = 0; j < stride; j++) {
+                babySteps.put(ByteBuffer.wrap(points[j].getEncoded(true)), j);
+            }
+            giantStep = generatorMultiplier.multiply(generator, BigInteger.valueOf(stride)).negate();
+        }
+
+        private int solve(ECPoint target) {
+            ECPoint point = target;
+            for (int i = 0; i <= stride; i++) {
+                Integer j = babySteps.get(ByteBuffer.wrap(point.getEncoded(true)));
+                if (j != null) {
+                    return i * stride + j;
+                }
+                point = point.add(giantStep);
+            }
+            throw new IllegalStateException("Homomorphic tally does not decrypt to a count within " +
+                    ((long) stride * stride - 1) + " ballots");
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.securevoting.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of pre-generated key pairs, refilled by a background thread.
+ *
+ * When a take leaves the pool at or below the low watermark, a refill is scheduled that
+ * generates key pairs until the pool holds the high watermark. An empty pool is a
+ * starvation: the key pair is then generated on the caller's thread. Every key pair is
+ * handed out exactly once; taking removes it from the pool.
+ */
+public final class KeyPairPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyPairPool.class);
+
+    @FunctionalInterface
+    public interface KeyPairSource {
+        KeyPair generate() throws GeneralSecurityException;
+    }
+
+    private final String name;
+    private final KeyPairSource source;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final BlockingQueue<KeyPair> pool;
+    private final ExecutorService refiller;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    private final LongAdder taken = new LongAdder();
+    private final LongAdder starvations = new LongAdder();
+    private final LongAdder generatedInBackground = new LongAdder();
+    private final LongAdder refillFailures = new LongAdder();
+
+    public KeyPairPool(String name, KeyPairSource source, int lowWatermark, int highWatermark) {
+        if (highWatermark < 1 || lowWatermark < 0 || lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("Invalid " + name + " pool watermarks: low=" + lowWatermark
+                    + ", high=" + highWatermark);
+        }
+        this.name = name;
+        this.source = source;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.pool = new ArrayBlockingQueue<>(highWatermark);
+        this.refiller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-keypair-pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts filling the pool in the background.
+     */
+    public void start() {
+        scheduleRefill();
+        logger.info("{} key pair pool started - low watermark: {}, high watermark: {}",
+                name, lowWatermark, highWatermark);
+    }
+
+    public void shutdown() {
+        refiller.shutdownNow();
+        pool.clear();
+    }
+
+    /**
+     * Removes a key pair from the pool, or generates one on the calling thread if the
+     * pool is empty.
+     */
+    public KeyPair take() throws GeneralSecurityException {
+        KeyPair keyPair = pool.poll();
+        taken.increment();
+        if (pool.size() <= lowWatermark) {
+            scheduleRefill();
+        }
+        if (keyPair != null) {
+            return keyPair;
+        }
+        starvations.increment();
+        return source.generate();
+    }
+
+    public int size() {
+        return pool.size();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("depth", pool.size());
+        metrics.put("lowWatermark", lowWatermark);
+        metrics.put("highWatermark", highWatermark);
+        metrics.put("taken", taken.sum());
+        metrics.put("starvations", starvations.sum());
+        metrics.put("generatedInBackground", generatedInBackground.sum());
+        metrics.put("refillFailures", refillFailures.sum());
+        metrics.put("refilling", refilling.get());
+        return metrics;
+    }
+
+    private void scheduleRefill() {
+        if (!refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refiller.execute(this::refill);
+        } catch (RejectedExecutionException e) {
+            // Shut down
+            refilling.set(false);
+        }
+    }
+
+    private void refill() {
+        boolean failed = false;
+        try {
+            while (pool.size() < highWatermark && !Thread.currentThread().isInterrupted()) {
+                if (!pool.offer(source.generate())) {
+                    break;
+                }
+                generatedInBackground.increment();
+            }
+        } catch (GeneralSecurityException | RuntimeException e) {
+            failed = true;
+            refillFailures.increment();
+            logger.warn("{} key pair pool refill failed: {}", name, e.getMessage());
+        } finally {
+            refilling.set(false);
+        }
+        // A take may have drained the pool after the last size check; a failed refill
+        // is retried on the next take instead
+        if (!failed && pool.size() <= lowWatermark) {
+            scheduleRefill();
+        }
+    }
+}
@@ -11,8 +11,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.crypto.KeyGenerator;
 import java.security.*;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Post-Quantum Cryptography Service using BouncyCastle's Kyber implementation.
@@ -25,6 +29,11 @@ import java.security.*;
  *
  * This service complements QKDService by providing an alternative post-quantum
  * key exchange mechanism that works on classical hardware.
+ *
+ * Key pairs are pre-generated into a {@link KeyPairPool} per parameter set so that
+ * Kyber key generation stays off the vote submission path. Besides the configured
+ * algorithm, other parameter sets can be used for encapsulation (A/B routing); their
+ * pools are created on first use or by {@link #prepareParameterSet(String)}.
  */
 @Service
 public class LiboqsCryptoService {
@@ -36,7 +45,17 @@ public class LiboqsCryptoService {
     @Value("${quantum.crypto.algorithm:Kyber768}")
     private String kemAlgorithm;
 
+    @Value("${quantum.crypto.kyber.pool.enabled:true}")
+    private boolean keyPoolEnabled;
+
+    @Value("${quantum.crypto.kyber.pool.low-watermark:8}")
+    private int keyPoolLowWatermark;
+
+    @Value("${quantum.crypto.kyber.pool.high-watermark:32}")
+    private int keyPoolHighWatermark;
+
     private KyberParameterSpec kyberSpec;
+    private final Map<String, KeyPairPool> keyPairPools = new ConcurrentHashMap<>();
     private boolean initialized = false;
 
     @PostConstruct
@@ -49,25 +68,18 @@ public class LiboqsCryptoService {
             }
 
             // Set Kyber parameter spec based on configuration
-            switch (kemAlgorithm) {
-                case "Kyber512":
-                    kyberSpec = KyberParameterSpec.kyber512;
-                    break;
-                case "Kyber1024":
-                    kyberSpec = KyberParameterSpec.kyber1024;
-                    break;
-                case "Kyber768":
-                default:
-                    kyberSpec = KyberParameterSpec.kyber768;
-                    kemAlgorithm = "Kyber768";
-                    break;
+            kyberSpec = parameterSpec(kemAlgorithm);
+            if (kyberSpec == null) {
+                kyberSpec = KyberParameterSpec.kyber768;
+                kemAlgorithm = "Kyber768";
             }
 
             // Test that Kyber is available
             KeyPairGenerator testKpg = KeyPairGenerator.getInstance(KEM_ALGORITHM, PROVIDER);
-            testKpg.initialize(kyberSpec, new SecureRandom());
+            testKpg.initialize(kyberSpec, CryptoPrimitives.secureRandom());
 
             initialized = true;
+            prepareParameterSet(kemAlgorithm);
             logger.info("LiboqsCryptoService initialized successfully with algorithm: {}", kemAlgorithm);
             logger.info("Post-quantum Liboqs KEM ready for use - Security Level: {}", getSecurityLevel());
 
@@ -78,6 +90,12 @@ public class LiboqsCryptoService {
         }
     }
 
+    @PreDestroy
+    public void shutdown() {
+        keyPairPools.values().forEach(KeyPairPool::shutdown);
+        keyPairPools.clear();
+    }
+
     /**
      * Check if the service is properly initialized and ready to use.
      */
@@ -93,17 +111,29 @@ public class LiboqsCryptoService {
      * @throws Exception if KEM operations fail
      */
     public LiboqsResult encapsulate() throws Exception {
+        return encapsulate(kemAlgorithm);
+    }
+
+    /**
+     * Same as {@link #encapsulate()} with a specific Kyber parameter set.
+     *
+     * @param algorithm Kyber512, Kyber768 or Kyber1024
+     */
+    public LiboqsResult encapsulate(String algorithm) throws Exception {
         if (!initialized) {
             throw new IllegalStateException("LiboqsCryptoService not initialized. Check logs for errors.");
         }
+        KyberParameterSpec spec = parameterSpec(algorithm);
+        if (spec == null) {
+            throw new IllegalArgumentException("Unsupported Kyber parameter set: " + algorithm);
+        }
 
-        logger.info("=== Liboqs - Kyber KEM Encapsulation - Algorithm: {} ===", kemAlgorithm);
+        logger.info("=== Liboqs - Kyber KEM Encapsulation - Algorithm: {} ===", algorithm);
 
         try {
-            // Step 1: Generate Kyber key pair
-            KeyPairGenerator kpg = KeyPairGenerator.getInstance(KEM_ALGORITHM, PROVIDER);
-            kpg.initialize(kyberSpec, new SecureRandom());
-            KeyPair keyPair = kpg.generateKeyPair();
+            // Step 1: Take a pre-generated Kyber key pair
+            KeyPairPool pool = prepareParameterSet(algorithm);
+            KeyPair keyPair = pool != null ? pool.take() : generateKeyPair(spec);
 
             PublicKey publicKey = keyPair.getPublic();
             PrivateKey privateKey = keyPair.getPrivate();
@@ -112,8 +142,8 @@ public class LiboqsCryptoService {
                     publicKey.getEncoded().length, privateKey.getEncoded().length);
 
             // Step 2: Encapsulate - Generate shared secret and ciphertext
-            KeyGenerator keyGen = KeyGenerator.getInstance(KEM_ALGORITHM, PROVIDER);
-            keyGen.init(new KEMGenerateSpec(publicKey, "AES"), new SecureRandom());
+            KeyGenerator keyGen = CryptoPrimitives.keyGenerator(KEM_ALGORITHM, PROVIDER);
+            keyGen.init(new KEMGenerateSpec(publicKey, "AES"), CryptoPrimitives.secureRandom());
             SecretKeyWithEncapsulation secretKeyWithEnc = (SecretKeyWithEncapsulation) keyGen.generateKey();
 
             byte[] sharedSecret = secretKeyWithEnc.getEncoded();
@@ -128,7 +158,7 @@ public class LiboqsCryptoService {
             result.setPublicKey(publicKey.getEncoded());
             result.setSecretKey(privateKey.getEncoded());
             result.setCiphertext(encapsulation);
-            result.setAlgorithm(kemAlgorithm);
+            result.setAlgorithm(algorithm);
 
             logger.info("Liboqs - Kyber KEM encapsulation completed successfully");
             return result;
@@ -157,14 +187,14 @@ public class LiboqsCryptoService {
 
         try {
             // Step 1: Reconstruct the private key from PKCS8 encoded bytes
-            KeyFactory keyFactory = KeyFactory.getInstance(KEM_ALGORITHM, PROVIDER);
+            KeyFactory keyFactory = CryptoPrimitives.keyFactory(KEM_ALGORITHM, PROVIDER);
             java.security.spec.PKCS8EncodedKeySpec keySpec = new java.security.spec.PKCS8EncodedKeySpec(secretKeyBytes);
             PrivateKey privateKey = keyFactory.generatePrivate(keySpec);
 
             logger.debug("Liboqs - Reconstructed private key: {} bytes", privateKey.getEncoded().length);
 
             // Step 2: Decapsulate - Recover shared secret from ciphertext
-            KeyGenerator keyGen = KeyGenerator.getInstance(KEM_ALGORITHM, PROVIDER);
+            KeyGenerator keyGen = CryptoPrimitives.keyGenerator(KEM_ALGORITHM, PROVIDER);
             keyGen.init(new KEMExtractSpec(privateKey, ciphertext, "AES"));
             SecretKeyWithEncapsulation secretKey = (SecretKeyWithEncapsulation) keyGen.generateKey();
 
@@ -196,6 +226,64 @@ public class LiboqsCryptoService {
         return decapsulate(secretKey, ciphertext);
     }
 
+    /**
+     * @return true if the name is a Kyber parameter set this service can encapsulate with
+     */
+    public boolean supportsParameterSet(String algorithm) {
+        return parameterSpec(algorithm) != null;
+    }
+
+    /**
+     * Creates and starts the key pair pool of a parameter set if pooling is enabled and
+     * it is not running yet.
+     *
+     * @return the pool, or null if pooling is disabled
+     */
+    public KeyPairPool prepareParameterSet(String algorithm) {
+        KyberParameterSpec spec = parameterSpec(algorithm);
+        if (!keyPoolEnabled || spec == null) {
+            return null;
+        }
+        return keyPairPools.computeIfAbsent(algorithm, name -> {
+            KeyPairPool pool = new KeyPairPool(name, () -> generateKeyPair(spec),
+                    keyPoolLowWatermark, keyPoolHighWatermark);
+            pool.start();
+            return pool;
+        });
+    }
+
+    /**
+     * @return key pair pool depth and starvation metrics per parameter set, empty if
+     *         pooling is disabled
+     */
+    public Map<String, Object> getKeyPoolMetrics() {
+        Map<String, Object> metrics = new TreeMap<>();
+        keyPairPools.forEach((algorithm, pool) -> metrics.put(algorithm, pool.getMetrics()));
+        return metrics;
+    }
+
+    private static KyberParameterSpec parameterSpec(String algorithm) {
+        if (algorithm == null) {
+            return null;
+        }
+        switch (algorithm) {
+            case "Kyber512":
+                return KyberParameterSpec.kyber512;
+            case "Kyber768":
+                return KyberParameterSpec.kyber768;
+            case "Kyber1024":
+                return KyberParameterSpec.kyber1024;
+            default:
+                return null;
+        }
+    }
+
+    private static KeyPair generateKeyPair(KyberParameterSpec spec) throws GeneralSecurityException {
+        KeyPairGenerator kpg = CryptoPrimitives.keyPairGenerator(KEM_ALGORITHM, PROVIDER);
+        kpg.initialize(spec, CryptoPrimitives.secureRandom());
+        return kpg.generateKeyPair();
+    }
+
     /**
      * Get the current KEM algorithm being used.
      *
@@ -0,0 +1,140 @@
+package com.securevoting.service;
+
+import com.securevoting.model.Block;
+import com.securevoting.model.BlockMiner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Proof-of-work mining executor.
+ *
+ * The nonce space is split across a dedicated ForkJoin pool: worker {@code k} of
+ * {@code n} tries nonces {@code start + k}, {@code start + k + n}, ... with its own
+ * {@link BlockMiner}. The first worker to find a hash below the target publishes its
+ * nonce and the others stop at their next iteration.
+ */
+@Service
+public class MiningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MiningService.class);
+
+    @Value("${blockchain.mining.difficulty:4}")
+    private int difficulty;
+
+    // 0 = one worker per available core
+    @Value("${blockchain.mining.threads:0}")
+    private int threads;
+
+    private ForkJoinPool pool;
+
+    private final LongAdder blocksMined = new LongAdder();
+    private final LongAdder hashesComputed = new LongAdder();
+    private final LongAdder totalMiningNanos = new LongAdder();
+    private final AtomicLong maxMiningNanos = new AtomicLong();
+    private final AtomicLong lastMiningNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+        }
+        logger.info("Mining service started - difficulty: {}, workers: {}", difficulty, threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Finds a nonce meeting the configured difficulty and sets the block's nonce and hash.
+     */
+    public void mine(Block block) {
+        long start = System.nanoTime();
+        int startNonce = block.getNonce() != null ? block.getNonce() : 0;
+        int nonce = pool != null ? mineParallel(block, startNonce) : mineSequential(block, startNonce);
+        block.setNonce(nonce);
+        block.setHash(block.calculateHash());
+        recordMiningTime(System.nanoTime() - start);
+    }
+
+    private int mineSequential(Block block, int startNonce) {
+        int nonce = block.newMiner().findNonce(startNonce, difficulty);
+        hashesComputed.add((long) nonce - startNonce + 1);
+        return nonce;
+    }
+
+    private int mineParallel(Block block, int startNonce) {
+        AtomicBoolean found = new AtomicBoolean();
+        AtomicInteger winner = new AtomicInteger();
+        int stride = threads;
+        List<ForkJoinTask<?>> workers = new ArrayList<>(stride);
+        for (int k = 0; k < stride; k++) {
+            int offset = k;
+            workers.add(pool.submit(() -> {
+                BlockMiner miner = block.newMiner();
+                long tried = 0;
+                for (long nonce = (long) startNonce + offset; nonce <= Integer.MAX_VALUE && !found.get(); nonce += stride) {
+                    tried++;
+                    if (miner.meetsDifficulty((int) nonce, difficulty) && found.compareAndSet(false, true)) {
+                        winner.set((int) nonce);
+                    }
+                }
+                hashesComputed.add(tried);
+            }));
+        }
+        for (ForkJoinTask<?> worker : workers) {
+            worker.join();
+        }
+        if (!found.get()) {
+            throw new IllegalStateException("Nonce space exhausted for block " + block.getBlockHeight());
+        }
+        return winner.get();
+    }
+
+    private void recordMiningTime(long nanos) {
+        blocksMined.increment();
+        totalMiningNanos.add(nanos);
+        lastMiningNanos.set(nanos);
+        maxMiningNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public Map<String, Object> getMiningStats() {
+        long mined = blocksMined.sum();
+        long totalNanos = totalMiningNanos.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("difficulty", difficulty);
+        stats.put("workers", threads);
+        stats.put("blocksMined", mined);
+        stats.put("hashesComputed", hashesComputed.sum());
+        stats.put("averageMiningMs", mined > 0 ? totalNanos / mined / 1_000_000.0 : 0.0);
+        stats.put("maxMiningMs", maxMiningNanos.get() / 1_000_000.0);
+        stats.put("lastMiningMs", lastMiningNanos.get() / 1_000_000.0);
+        stats.put("hashesPerSecond", totalNanos > 0 ? (long) (hashesComputed.sum() * 1_000_000_000.0 / totalNanos) : 0L);
+        return stats;
+    }
+}
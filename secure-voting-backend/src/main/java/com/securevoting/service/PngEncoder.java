@@ -0,0 +1,430 @@
+package com.securevoting.service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PNG encoder for stego images (8-bit RGB or RGBA, non-interlaced).
+ *
+ * Rows are compressed in fixed-size segments, each with a fresh deflate state and
+ * flushed to a byte boundary, so every segment is an independent piece of the zlib
+ * stream. The first row of a segment never references the row above it (None or Sub
+ * filter). Together this lets the segments of a cover image be compressed once with
+ * {@link #precompress} and reused for every stego image whose payload did not reach
+ * them; only the rows the payload touched are filtered and compressed per vote.
+ */
+public final class PngEncoder {
+
+    public enum Filter { NONE, SUB, UP, AVERAGE, PAETH, ADAPTIVE }
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+    // Final, empty fixed-Huffman deflate block that terminates the concatenated segments
+    private static final byte[] FINAL_BLOCK = {0x03, 0x00};
+    private static final int ADLER_BASE = 65521;
+
+    private final int compressionLevel;
+    private final Filter filter;
+    private final int segmentRows;
+
+    // Output size of the previous encode, used to size the next output buffer up front
+    private volatile int lastOutputSize = 64 * 1024;
+
+    public PngEncoder(int compressionLevel, Filter filter, int segmentRows) {
+        if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("PNG compression level must be 0-9: " + compressionLevel);
+        }
+        if (segmentRows <= 0) {
+            throw new IllegalArgumentException("PNG segment rows must be positive: " + segmentRows);
+        }
+        this.compressionLevel = compressionLevel;
+        this.filter = filter;
+        this.segmentRows = segmentRows;
+    }
+
+    /**
+     * Compressed row segments of an image, reusable by {@link #encode(BufferedImage, EncodedRows, int)}
+     * for images with the same pixels below the dirty rows.
+     */
+    public static final class EncodedRows {
+        private final int width;
+        private final int height;
+        private final boolean alpha;
+        private final int segmentRows;
+        private final Segment[] segments;
+
+        private EncodedRows(int width, int height, boolean alpha, int segmentRows, Segment[] segments) {
+            this.width = width;
+            this.height = height;
+            this.alpha = alpha;
+            this.segmentRows = segmentRows;
+            this.segments = segments;
+        }
+    }
+
+    private static final class Segment {
+        private final byte[] deflated;
+        private final int adler;
+        private final int rawLength;
+        private final int crc;
+
+        private Segment(byte[] deflated, int adler, int rawLength) {
+            this.deflated = deflated;
+            this.adler = adler;
+            this.rawLength = rawLength;
+            this.crc = chunkCrc(IDAT, deflated, 0, deflated.length);
+        }
+    }
+
+    /**
+     * Compresses every row segment of the image for later reuse.
+     */
+    public EncodedRows precompress(BufferedImage image) {
+        Scanlines scanlines = new Scanlines(image);
+        int height = image.getHeight();
+        Segment[] segments = new Segment[(height + segmentRows - 1) / segmentRows];
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = compressSegment(scanlines, deflater, i * segmentRows,
+                        Math.min(height, (i + 1) * segmentRows), null);
+            }
+        } finally {
+            deflater.end();
+        }
+        return new EncodedRows(image.getWidth(), height, scanlines.alpha, segmentRows, segments);
+    }
+
+    public byte[] encode(BufferedImage image) {
+        return encode(image, null, image.getHeight());
+    }
+
+    /**
+     * Encodes the image, reusing the cached segments that lie entirely below {@code dirtyRows}.
+     *
+     * @param cached    segments precompressed from the unmodified image, or null
+     * @param dirtyRows number of leading rows that may differ from the cached image
+     */
+    public byte[] encode(BufferedImage image, EncodedRows cached, int dirtyRows) {
+        Scanlines scanlines = new Scanlines(image);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (cached != null && (cached.width != width || cached.height != height
+                || cached.alpha != scanlines.alpha || cached.segmentRows != segmentRows)) {
+            cached = null;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(lastOutputSize + lastOutputSize / 8);
+        out.write(SIGNATURE, 0, SIGNATURE.length);
+
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8; // bit depth
+        header[9] = (byte) (scanlines.alpha ? 6 : 2); // RGBA or RGB
+        writeChunk(out, IHDR, header, 0, header.length);
+
+        writeChunk(out, IDAT, zlibHeader(), 0, 2);
+
+        int segmentCount = (height + segmentRows - 1) / segmentRows;
+        int adler = 1;
+        Deflater deflater = null;
+        try {
+            for (int i = 0; i < segmentCount; i++) {
+                int firstRow = i * segmentRows;
+                Segment segment;
+                if (cached != null && firstRow >= dirtyRows) {
+                    segment = cached.segments[i];
+                } else {
+                    if (deflater == null) {
+                        deflater = new Deflater(compressionLevel, true);
+                    }
+                    Segment previous = cached != null ? cached.segments[i] : null;
+                    segment = compressSegment(scanlines, deflater, firstRow, Math.min(height, firstRow + segmentRows), previous);
+                }
+                writeChunk(out, IDAT, segment.deflated, segment.crc);
+                adler = combineAdler(adler, segment.adler, segment.rawLength);
+            }
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        byte[] trailer = new byte[6];
+        System.arraycopy(FINAL_BLOCK, 0, trailer, 0, 2);
+        writeInt(trailer, 2, adler);
+        writeChunk(out, IDAT, trailer, 0, trailer.length);
+        writeChunk(out, IEND, new byte[0], 0, 0);
+
+        lastOutputSize = out.size();
+        return out.toByteArray();
+    }
+
+    private Segment compressSegment(Scanlines scanlines, Deflater deflater, int fromRow, int toRow, Segment sizeHint) {
+        int rowBytes = scanlines.rowBytes;
+        int bpp = scanlines.bytesPerPixel;
+        byte[] raw = new byte[(toRow - fromRow) * (rowBytes + 1)];
+        byte[] previous = new byte[rowBytes];
+        byte[] current = new byte[rowBytes];
+        byte[][] candidates = filter == Filter.ADAPTIVE ? new byte[5][rowBytes] : null;
+
+        int position = 0;
+        for (int y = fromRow; y < toRow; y++) {
+            scanlines.read(y, current);
+            boolean segmentStart = y == fromRow;
+            position = filterRow(current, previous, bpp, segmentStart, raw, position, candidates);
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        Adler32 checksum = new Adler32();
+        checksum.update(raw, 0, raw.length);
+
+        deflater.reset();
+        deflater.setInput(raw, 0, raw.length);
+        int estimate = sizeHint != null ? sizeHint.deflated.length + 1024 : raw.length / 2 + 64;
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(estimate);
+        byte[] buffer = new byte[32 * 1024];
+        int n;
+        // FULL_FLUSH byte-aligns the output without a final block, so segments can be concatenated
+        do {
+            n = deflater.deflate(buffer, 0, buffer.length, Deflater.FULL_FLUSH);
+            deflated.write(buffer, 0, n);
+        } while (n == buffer.length);
+        return new Segment(deflated.toByteArray(), (int) checksum.getValue(), raw.length);
+    }
+
+    // Writes the filter type byte and the filtered row into out, returns the new position
+    private int filterRow(byte[] row, byte[] prev, int bpp, boolean segmentStart, byte[] out, int position,
+                          byte[][] candidates) {
+        Filter rowFilter = filter;
+        if (segmentStart && rowFilter != Filter.NONE && rowFilter != Filter.ADAPTIVE) {
+            rowFilter = Filter.SUB; // must not depend on the row above
+        }
+
+        if (rowFilter != Filter.ADAPTIVE) {
+            out[position] = (byte) rowFilter.ordinal();
+            applyFilter(rowFilter.ordinal(), row, prev, bpp, out, position + 1);
+            return position + 1 + row.length;
+        }
+
+        // Adaptive: pick the filter with the smallest sum of absolute signed residuals
+        int types = segmentStart ? 2 : 5;
+        int best = 0;
+        long bestSum = Long.MAX_VALUE;
+        for (int type = 0; type < types; type++) {
+            applyFilter(type, row, prev, bpp, candidates[type], 0);
+            long sum = 0;
+            for (byte b : candidates[type]) {
+                sum += Math.abs(b);
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = type;
+            }
+        }
+        out[position] = (byte) best;
+        System.arraycopy(candidates[best], 0, out, position + 1, row.length);
+        return position + 1 + row.length;
+    }
+
+    private static void applyFilter(int type, byte[] row, byte[] prev, int bpp, byte[] out, int offset) {
+        int length = row.length;
+        switch (type) {
+            case 0:
+                System.arraycopy(row, 0, out, offset, length);
+                break;
+            case 1:
+                for (int i = 0; i < length; i++) {
+                    int left = i >= bpp ? row[i - bpp] : 0;
+                    out[offset + i] = (byte) (row[i] - left);
+                }
+                break;
+            case 2:
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = (byte) (row[i] - prev[i]);
+                }
+                break;
+            case 3:
+                for (int i = 0; i < length; i++) {
+                    int left = i >= bpp ? row[i - bpp] & 0xFF : 0;
+                    out[offset + i] = (byte) (row[i] - ((left + (prev[i] & 0xFF)) >>> 1));
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    int a = i >= bpp ? row[i - bpp] & 0xFF : 0;
+                    int b = prev[i] & 0xFF;
+                    int c = i >= bpp ? prev[i - bpp] & 0xFF : 0;
+                    out[offset + i] = (byte) (row[i] - paeth(a, b, c));
+                }
+                break;
+        }
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private byte[] zlibHeader() {
+        int cmf = 0x78; // deflate, 32K window
+        int level = compressionLevel <= 1 ? 0 : compressionLevel <= 5 ? 1 : compressionLevel == 6 ? 2 : 3;
+        int flg = level << 6;
+        flg += 31 - ((cmf << 8) + flg) % 31;
+        return new byte[]{(byte) cmf, (byte) flg};
+    }
+
+    // zlib's adler32_combine: checksum of A followed by B from the checksums of A and B
+    private static int combineAdler(int adlerA, int adlerB, long lengthB) {
+        long remainder = lengthB % ADLER_BASE;
+        long sum1 = adlerA & 0xFFFF;
+        long sum2 = (remainder * sum1) % ADLER_BASE;
+        sum1 += (adlerB & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adlerA >>> 16) & 0xFFFF) + ((adlerB >>> 16) & 0xFFFF) + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum2 >= ((long) ADLER_BASE << 1)) sum2 -= ((long) ADLER_BASE << 1);
+        if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE;
+        return (int) (sum1 | (sum2 << 16));
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, byte[] type, byte[] data, int offset, int length) {
+        writeChunk(out, type, data, offset, length, chunkCrc(type, data, offset, length));
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, byte[] type, byte[] data, int crc) {
+        writeChunk(out, type, data, 0, data.length, crc);
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, byte[] type, byte[] data, int offset, int length, int crc) {
+        byte[] word = new byte[4];
+        writeInt(word, 0, length);
+        out.write(word, 0, 4);
+        out.write(type, 0, 4);
+        out.write(data, offset, length);
+        writeInt(word, 0, crc);
+        out.write(word, 0, 4);
+    }
+
+    private static int chunkCrc(byte[] type, byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(type, 0, 4);
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static void writeInt(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >>> 24);
+        b[offset + 1] = (byte) (value >>> 16);
+        b[offset + 2] = (byte) (value >>> 8);
+        b[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Reads image rows as PNG samples (R, G, B(, A)), straight from the raster for 8-bit
+     * interleaved sRGB images and through getRGB otherwise.
+     */
+    private static final class Scanlines {
+        private final BufferedImage image;
+        private final boolean alpha;
+        private final int bytesPerPixel;
+        private final int rowBytes;
+        private final byte[] data;
+        private final int[] bandOffsets;
+        private final int pixelStride;
+        private final int scanlineStride;
+        private final int offset;
+        private final int[] argb;
+
+        Scanlines(BufferedImage image) {
+            this.image = image;
+            WritableRaster raster = image.getRaster();
+            ColorModel colorModel = image.getColorModel();
+            PixelInterleavedSampleModel interleaved = raster.getSampleModel() instanceof PixelInterleavedSampleModel
+                    ? (PixelInterleavedSampleModel) raster.getSampleModel() : null;
+            boolean direct = interleaved != null && raster.getDataBuffer() instanceof DataBufferByte
+                    && colorModel instanceof ComponentColorModel && colorModel.getColorSpace().isCS_sRGB()
+                    && !colorModel.isAlphaPremultiplied() && raster.getDataBuffer().getNumBanks() == 1
+                    && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                    && (interleaved.getNumBands() == 3 || interleaved.getNumBands() == 4);
+            if (direct) {
+                for (int size : interleaved.getSampleSize()) {
+                    direct &= size == 8;
+                }
+            }
+
+            this.alpha = colorModel.hasAlpha();
+            this.bytesPerPixel = alpha ? 4 : 3;
+            this.rowBytes = image.getWidth() * bytesPerPixel;
+            if (direct) {
+                this.data = ((DataBufferByte) raster.getDataBuffer()).getData();
+                this.bandOffsets = interleaved.getBandOffsets();
+                this.pixelStride = interleaved.getPixelStride();
+                this.scanlineStride = interleaved.getScanlineStride();
+                this.offset = raster.getDataBuffer().getOffset();
+                this.argb = null;
+            } else {
+                this.data = null;
+                this.bandOffsets = null;
+                this.pixelStride = 0;
+                this.scanlineStride = 0;
+                this.offset = 0;
+                this.argb = new int[image.getWidth()];
+            }
+        }
+
+        void read(int y, byte[] out) {
+            int width = image.getWidth();
+            if (data != null) {
+                int pixel = offset + y * scanlineStride;
+                int r = bandOffsets[0], g = bandOffsets[1], b = bandOffsets[2];
+                if (alpha) {
+                    int a = bandOffsets[3];
+                    for (int x = 0, o = 0; x < width; x++, o += 4, pixel += pixelStride) {
+                        out[o] = data[pixel + r];
+                        out[o + 1] = data[pixel + g];
+                        out[o + 2] = data[pixel + b];
+                        out[o + 3] = data[pixel + a];
+                    }
+                } else {
+                    for (int x = 0, o = 0; x < width; x++, o += 3, pixel += pixelStride) {
+                        out[o] = data[pixel + r];
+                        out[o + 1] = data[pixel + g];
+                        out[o + 2] = data[pixel + b];
+                    }
+                }
+                return;
+            }
+            image.getRGB(0, y, width, 1, argb, 0, width);
+            for (int x = 0, o = 0; x < width; x++) {
+                int pixel = argb[x];
+                out[o++] = (byte) (pixel >> 16);
+                out[o++] = (byte) (pixel >> 8);
+                out[o++] = (byte) pixel;
+                if (alpha) {
+                    out[o++] = (byte) (pixel >>> 24);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.securevoting.service;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Incremental PNG decoder that yields unfiltered scanlines one at a time.
+ *
+ * IDAT chunks are inflated straight out of the encoded byte array, only as far as
+ * the rows actually requested, so a caller that needs the first few rows never
+ * decompresses the rest of the image. Supports the layout the stego images are
+ * written in: 8-bit RGB or RGBA, non-interlaced. {@link #open} returns null for
+ * anything else so the caller can fall back to ImageIO.
+ */
+final class PngScanlineReader {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IHDR = 0x49484452;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454E44;
+
+    private final byte[] png;
+    private final int width;
+    private final int height;
+    private final int bytesPerPixel;
+    private final Inflater inflater = new Inflater();
+    private final byte[] filterByte = new byte[1];
+
+    private int nextChunk;
+    private int rowsRead;
+    private byte[] row;
+    private byte[] previousRow;
+
+    private PngScanlineReader(byte[] png, int width, int height, int bytesPerPixel, int firstChunk) {
+        this.png = png;
+        this.width = width;
+        this.height = height;
+        this.bytesPerPixel = bytesPerPixel;
+        this.nextChunk = firstChunk;
+        this.row = new byte[width * bytesPerPixel];
+        this.previousRow = new byte[width * bytesPerPixel];
+    }
+
+    /**
+     * @return a reader positioned before the first row, or null if the data is not a PNG
+     *         this reader supports
+     */
+    static PngScanlineReader open(byte[] png) {
+        if (png.length < 8 + 25) {
+            return null;
+        }
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (png[i] != SIGNATURE[i]) {
+                return null;
+            }
+        }
+        if (readInt(png, 8) != 13 || readInt(png, 12) != IHDR) {
+            return null;
+        }
+        int width = readInt(png, 16);
+        int height = readInt(png, 20);
+        int bitDepth = png[24] & 0xFF;
+        int colorType = png[25] & 0xFF;
+        int compression = png[26] & 0xFF;
+        int filter = png[27] & 0xFF;
+        int interlace = png[28] & 0xFF;
+        if (width <= 0 || height <= 0 || bitDepth != 8 || compression != 0 || filter != 0 || interlace != 0) {
+            return null;
+        }
+        int bytesPerPixel;
+        if (colorType == 2) {
+            bytesPerPixel = 3;
+        } else if (colorType == 6) {
+            bytesPerPixel = 4;
+        } else {
+            return null;
+        }
+        if ((long) width * bytesPerPixel > Integer.MAX_VALUE - 1) {
+            return null;
+        }
+        return new PngScanlineReader(png, width, height, bytesPerPixel, 8 + 12 + 13);
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int getBytesPerPixel() {
+        return bytesPerPixel;
+    }
+
+    /**
+     * Decodes the next scanline. The returned array is reused by the following call.
+     * Samples are in file order: R, G, B(, A).
+     */
+    byte[] nextRow() throws IOException {
+        if (rowsRead >= height) {
+            throw new IOException("PNG has no more rows");
+        }
+        byte[] swap = previousRow;
+        previousRow = row;
+        row = swap;
+
+        int filterType = inflateByte();
+        inflateFully(row);
+        unfilter(filterType);
+        rowsRead++;
+        if (rowsRead == height) {
+            inflater.end();
+        }
+        return row;
+    }
+
+    /**
+     * Releases the inflater when the caller stops before the last row.
+     */
+    void close() {
+        inflater.end();
+    }
+
+    private void unfilter(int filterType) throws IOException {
+        byte[] cur = row;
+        byte[] prev = previousRow; // all zero before the first row
+        int bpp = bytesPerPixel;
+        switch (filterType) {
+            case 0: // None
+                break;
+            case 1: // Sub
+                for (int i = bpp; i < cur.length; i++) {
+                    cur[i] += cur[i - bpp];
+                }
+                break;
+            case 2: // Up
+                for (int i = 0; i < cur.length; i++) {
+                    cur[i] += prev[i];
+                }
+                break;
+            case 3: // Average
+                for (int i = 0; i < cur.length; i++) {
+                    int left = i >= bpp ? cur[i - bpp] & 0xFF : 0;
+                    cur[i] += (left + (prev[i] & 0xFF)) >>> 1;
+                }
+                break;
+            case 4: // Paeth
+                for (int i = 0; i < cur.length; i++) {
+                    int a = i >= bpp ? cur[i - bpp] & 0xFF : 0;
+                    int b = prev[i] & 0xFF;
+                    int c = i >= bpp ? prev[i - bpp] & 0xFF : 0;
+                    cur[i] += paeth(a, b, c);
+                }
+                break;
+            default:
+                throw new IOException("Invalid PNG filter type " + filterType);
+        }
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private int inflateByte() throws IOException {
+        inflateFully(filterByte);
+        return filterByte[0] & 0xFF;
+    }
+
+    private void inflateFully(byte[] out) throws IOException {
+        int filled = 0;
+        try {
+            while (filled < out.length) {
+                int n = inflater.inflate(out, filled, out.length - filled);
+                filled += n;
+                if (n == 0) {
+                    if (inflater.finished()) {
+                        throw new IOException("PNG image data ends before the last row");
+                    }
+                    if (inflater.needsDictionary()) {
+                        throw new IOException("PNG image data requests a preset dictionary");
+                    }
+                    if (inflater.needsInput()) {
+                        feedNextIdat();
+                    }
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt PNG image data", e);
+        }
+    }
+
+    // Hands the next IDAT chunk's data to the inflater without copying it
+    private void feedNextIdat() throws IOException {
+        while (nextChunk + 12 <= png.length) {
+            int length = readInt(png, nextChunk);
+            int type = readInt(png, nextChunk + 4);
+            int dataStart = nextChunk + 8;
+            if (length < 0 || dataStart + (long) length + 4 > png.length) {
+                break;
+            }
+            nextChunk = dataStart + length + 4; // skip CRC
+            if (type == IDAT) {
+                inflater.setInput(png, dataStart, length);
+                return;
+            }
+            if (type == IEND) {
+                break;
+            }
+        }
+        throw new IOException("PNG image data is truncated");
+    }
+
+    private static int readInt(byte[] b, int offset) {
+        return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16)
+                | ((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+    }
+}
@@ -96,7 +96,7 @@ public class PostQuantumSignatureService {
         logger.info("Generating new Dilithium key pair - Algorithm: {}", signatureAlgorithm);
 
         KeyPairGenerator kpg = KeyPairGenerator.getInstance(SIGNATURE_ALGORITHM, PROVIDER);
-        kpg.initialize(dilithiumSpec, new SecureRandom());
+        kpg.initialize(dilithiumSpec, CryptoPrimitives.secureRandom());
         signingKeyPair = kpg.generateKeyPair();
 
         logger.info("Dilithium key pair generated - Public key: {} bytes, Private key: {} bytes",
@@ -135,8 +135,8 @@ public class PostQuantumSignatureService {
 
         try {
             // Create signature instance
-            Signature signer = Signature.getInstance(SIGNATURE_ALGORITHM, PROVIDER);
-            signer.initSign(signingKeyPair.getPrivate(), new SecureRandom());
+            Signature signer = CryptoPrimitives.signature(SIGNATURE_ALGORITHM, PROVIDER);
+            signer.initSign(signingKeyPair.getPrivate(), CryptoPrimitives.secureRandom());
 
             // Sign the data
             signer.update(data);
@@ -178,8 +178,8 @@ public class PostQuantumSignatureService {
 
         logger.info("Signing data with provided private key - Algorithm: {}", signatureAlgorithm);
 
-        Signature signer = Signature.getInstance(SIGNATURE_ALGORITHM, PROVIDER);
-        signer.initSign(privateKey, new SecureRandom());
+        Signature signer = CryptoPrimitives.signature(SIGNATURE_ALGORITHM, PROVIDER);
+        signer.initSign(privateKey, CryptoPrimitives.secureRandom());
         signer.update(data);
         byte[] signature = signer.sign();
 
@@ -228,14 +228,14 @@ public class PostQuantumSignatureService {
                 signatureAlgorithm, data.length, signature.length);
 
         try {
-            // Reconstruct the public key
-            KeyFactory keyFactory = KeyFactory.getInstance(SIGNATURE_ALGORITHM, PROVIDER);
+            // Reconstruct the public key (X.509 encoded, as returned by sign())
+            KeyFactory keyFactory = CryptoPrimitives.keyFactory(SIGNATURE_ALGORITHM, PROVIDER);
             PublicKey pubKey = keyFactory.generatePublic(
-                    new org.bouncycastle.jcajce.spec.RawEncodedKeySpec(publicKey)
+                    new java.security.spec.X509EncodedKeySpec(publicKey)
             );
 
             // Verify the signature
-            Signature verifier = Signature.getInstance(SIGNATURE_ALGORITHM, PROVIDER);
+            Signature verifier = CryptoPrimitives.signature(SIGNATURE_ALGORITHM, PROVIDER);
             verifier.initVerify(pubKey);
             verifier.update(data);
             boolean valid = verifier.verify(signature);
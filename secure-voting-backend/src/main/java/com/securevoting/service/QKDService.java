@@ -1,12 +1,14 @@
 package com.securevoting.service;
 
+import com.google.gson.Gson;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
-import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 /**
@@ -40,7 +42,7 @@ public class QKDService {
 
     @PostConstruct
     public void init() {
-        this.secureRandom = new SecureRandom();
+        this.secureRandom = CryptoPrimitives.secureRandom();
         System.out.println("QKDService initialized with BB84 protocol - simulator: " + simulator +
                 ", qubits: " + numberOfQubits + ", error threshold: " + errorThreshold);
     }
@@ -55,27 +57,26 @@ public class QKDService {
         System.out.println("=== QKD BB84 Protocol - Key Generation ===");
 
         // Step 1: Alice generates random bits and bases
-        List<Integer> aliceBits = generateRandomBits(numberOfQubits);
-        List<Integer> aliceBases = generateRandomBases(numberOfQubits);
+        long[] aliceBits = generateRandomBits(numberOfQubits);
+        long[] aliceBases = generateRandomBits(numberOfQubits);
         System.out.println("Alice generated " + numberOfQubits + " random bits and bases");
 
         // Step 2: Create quantum states (simulated)
-        List<Integer> quantumStates = createQuantumStates(aliceBits, aliceBases);
+        long[] quantumStates = createQuantumStates(aliceBits, aliceBases);
 
         // Step 3: Bob measures with random bases
-        List<Integer> bobBases = generateRandomBases(numberOfQubits);
-        List<Integer> bobResults = measureQuantumStates(quantumStates, bobBases);
+        long[] bobBases = generateRandomBits(numberOfQubits);
+        long[] bobResults = measureQuantumStates(quantumStates, bobBases);
         System.out.println("Bob measured quantum states with random bases");
 
         // Step 4: Basis reconciliation (public discussion)
-        QKDReconciliationResult reconciliation = reconcileBases(aliceBases, bobBases, aliceBits, bobResults);
-        System.out.println("Basis reconciliation: " + reconciliation.getMatchingBits().size() +
+        long[] matchingBases = reconcileBases(aliceBases, bobBases, numberOfQubits);
+        int matchingBitsCount = cardinality(matchingBases);
+        System.out.println("Basis reconciliation: " + matchingBitsCount +
                 " matching bits out of " + numberOfQubits);
 
         // Step 5: Error estimation and eavesdropping detection
-        double errorRate = estimateError(reconciliation.getMatchingBits(),
-                reconciliation.getAliceBits(),
-                reconciliation.getBobBits());
+        double errorRate = estimateError(matchingBases, matchingBitsCount, aliceBits, bobResults);
         System.out.println("Error rate: " + errorRate + " (threshold: " + errorThreshold + ")");
 
         if (errorRate > errorThreshold) {
@@ -85,8 +86,7 @@ public class QKDService {
         }
 
         // Step 6: Privacy amplification
-        byte[] sharedSecret = privacyAmplification(reconciliation.getMatchingBits(),
-                reconciliation.getAliceBits());
+        byte[] sharedSecret = privacyAmplification(matchingBases, matchingBitsCount, aliceBits);
         System.out.println("Privacy amplification completed. Shared secret: " + sharedSecret.length + " bytes");
 
         // Create QKD metadata for storage
@@ -96,7 +96,7 @@ public class QKDService {
         metadata.setBobBases(bobBases);
         metadata.setErrorRate(errorRate);
         metadata.setNumberOfQubits(numberOfQubits);
-        metadata.setMatchingBitsCount(reconciliation.getMatchingBits().size());
+        metadata.setMatchingBitsCount(matchingBitsCount);
 
         QKDResult result = new QKDResult();
         result.setSharedSecret(sharedSecret);
@@ -109,41 +109,31 @@ public class QKDService {
      * Reconstruct shared secret from QKD metadata (for decryption).
      *
      * @param metadata QKD metadata containing bases and error information
-     * @param bobResults Bob's measurement results
      * @return Shared secret byte array
      * @throws Exception if reconstruction fails
      */
-    public byte[] reconstructSharedSecret(QKDMetadata metadata, List<Integer> bobResults) throws Exception {
+    public byte[] reconstructSharedSecret(QKDMetadata metadata) throws Exception {
         System.out.println("=== QKD BB84 Protocol - Key Reconstruction ===");
 
         // Use Alice's bits directly from metadata instead of trying to reconstruct
-        List<Integer> aliceBits = metadata.getAliceBits();
+        long[] aliceBits = metadata.getAliceBits();
 
-        if (aliceBits == null || aliceBits.isEmpty()) {
+        if (aliceBits == null || metadata.getNumberOfQubits() == 0) {
             System.err.println("Alice's bits not found in metadata. Cannot reconstruct shared secret.");
             throw new IllegalArgumentException("QKD metadata missing Alice's bits. " +
                     "This may be due to data encrypted with an older version of the service.");
         }
 
-        // Perform basis reconciliation using the stored Alice's bits
-        List<Integer> matchingIndices = new ArrayList<>();
-        List<Integer> matchingAliceBits = new ArrayList<>();
-        List<Integer> matchingBobBits = new ArrayList<>();
-
-        for (int i = 0; i < metadata.getAliceBases().size(); i++) {
-            if (metadata.getAliceBases().get(i).equals(metadata.getBobBases().get(i))) {
-                matchingIndices.add(i);
-                matchingAliceBits.add(aliceBits.get(i));
-                // For reconstruction, we use Alice's bits directly (since Bob's measurement
-                // would have matched when bases were the same)
-                matchingBobBits.add(aliceBits.get(i));
-            }
-        }
+        // Perform basis reconciliation using the stored Alice's bits. Bob's measurement
+        // matches Alice's bit wherever the bases agree, so Alice's bits are used directly.
+        long[] matchingBases = reconcileBases(metadata.getAliceBases(), metadata.getBobBases(),
+                metadata.getNumberOfQubits());
+        int matchingBitsCount = cardinality(matchingBases);
 
-        System.out.println("Reconstructed " + matchingAliceBits.size() + " matching bits from stored metadata");
+        System.out.println("Reconstructed " + matchingBitsCount + " matching bits from stored metadata");
 
         // Privacy amplification
-        byte[] sharedSecret = privacyAmplification(matchingIndices, matchingAliceBits);
+        byte[] sharedSecret = privacyAmplification(matchingBases, matchingBitsCount, aliceBits);
         System.out.println("Shared secret reconstructed: " + sharedSecret.length + " bytes");
 
         return sharedSecret;
@@ -151,95 +141,96 @@ public class QKDService {
 
     // === Private Helper Methods ===
 
-    private List<Integer> generateRandomBits(int count) {
-        List<Integer> bits = new ArrayList<>();
-        for (int i = 0; i < count; i++) {
-            bits.add(secureRandom.nextInt(2));
-        }
-        return bits;
-    }
+    // Bit sets are long[] words in java.util.BitSet order: bit i is bit (i % 64) of word i / 64
 
-    private List<Integer> generateRandomBases(int count) {
-        List<Integer> bases = new ArrayList<>();
-        for (int i = 0; i < count; i++) {
-            bases.add(secureRandom.nextInt(2));
+    private long[] generateRandomBits(int count) {
+        long[] bits = new long[words(count)];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = secureRandom.nextLong();
         }
-        return bases;
+        clearUnusedBits(bits, count);
+        return bits;
     }
 
-    private List<Integer> createQuantumStates(List<Integer> bits, List<Integer> bases) {
+    private long[] createQuantumStates(long[] bits, long[] bases) {
         // Simulate quantum state creation
         // In real QKD, this would create actual qubits
         // For simulation, we just return the bits (they represent the quantum states)
-        return new ArrayList<>(bits);
+        return bits.clone();
     }
 
-    private List<Integer> measureQuantumStates(List<Integer> quantumStates, List<Integer> measurementBases) {
+    private long[] measureQuantumStates(long[] quantumStates, long[] measurementBases) {
         // Simulate quantum measurement
         // In real QKD, measuring collapses the quantum state
         // For simulation, we return the states (representing measurement results)
-        List<Integer> results = new ArrayList<>();
-        for (int i = 0; i < quantumStates.size(); i++) {
-            results.add(quantumStates.get(i));
-        }
-        return results;
+        return quantumStates.clone();
     }
 
-    private QKDReconciliationResult reconcileBases(List<Integer> aliceBases, List<Integer> bobBases,
-                                                   List<Integer> aliceBits, List<Integer> bobResults) {
-        List<Integer> matchingIndices = new ArrayList<>();
-        List<Integer> matchingAliceBits = new ArrayList<>();
-        List<Integer> matchingBobBits = new ArrayList<>();
-
-        for (int i = 0; i < aliceBases.size(); i++) {
-            if (aliceBases.get(i).equals(bobBases.get(i))) {
-                matchingIndices.add(i);
-                matchingAliceBits.add(aliceBits.get(i));
-                matchingBobBits.add(bobResults.get(i));
-            }
+    /**
+     * @return bit set of the positions where Alice's and Bob's bases agree
+     */
+    private static long[] reconcileBases(long[] aliceBases, long[] bobBases, int count) {
+        long[] matching = new long[words(count)];
+        for (int i = 0; i < matching.length; i++) {
+            matching[i] = ~(aliceBases[i] ^ bobBases[i]);
         }
-
-        QKDReconciliationResult result = new QKDReconciliationResult();
-        result.setMatchingBits(matchingIndices);
-        result.setAliceBits(matchingAliceBits);
-        result.setBobBits(matchingBobBits);
-
-        return result;
+        clearUnusedBits(matching, count);
+        return matching;
     }
 
-    private double estimateError(List<Integer> matchingIndices, List<Integer> aliceBits, List<Integer> bobBits) {
-        if (matchingIndices.isEmpty()) {
+    private static double estimateError(long[] matchingBases, int matchingBitsCount,
+                                        long[] aliceBits, long[] bobBits) {
+        if (matchingBitsCount == 0) {
             return 1.0; // 100% error if no matching bits
         }
 
-        // Use a subset for error estimation (e.g., 10% of matching bits)
-        int sampleSize = Math.max(1, matchingIndices.size() / 10);
+        // Use a subset for error estimation (e.g., 10% of matching bits): the first
+        // sampleSize matching positions
+        int sampleSize = Math.max(1, matchingBitsCount / 10);
+        int remaining = sampleSize;
         int errors = 0;
 
-        for (int i = 0; i < sampleSize && i < aliceBits.size(); i++) {
-            if (!aliceBits.get(i).equals(bobBits.get(i))) {
-                errors++;
+        for (int w = 0; w < matchingBases.length && remaining > 0; w++) {
+            long sample = matchingBases[w];
+            if (Long.bitCount(sample) > remaining) {
+                // Keep only the lowest 'remaining' matching positions of this word
+                long kept = 0;
+                for (int k = 0; k < remaining; k++) {
+                    long lowest = sample & -sample;
+                    kept |= lowest;
+                    sample ^= lowest;
+                }
+                sample = kept;
             }
+            remaining -= Long.bitCount(sample);
+            errors += Long.bitCount((aliceBits[w] ^ bobBits[w]) & sample);
         }
 
         return (double) errors / sampleSize;
     }
 
-    private byte[] privacyAmplification(List<Integer> matchingIndices, List<Integer> bits) throws Exception {
-        // Convert bits to bytes
-        int byteCount = (bits.size() + 7) / 8;
-        byte[] rawKey = new byte[byteCount];
-
-        for (int i = 0; i < bits.size(); i++) {
-            int byteIndex = i / 8;
-            int bitIndex = i % 8;
-            if (bits.get(i) == 1) {
-                rawKey[byteIndex] |= (1 << (7 - bitIndex));
+    /**
+     * Packs Alice's bits at the matching positions, in index order and most significant
+     * bit first, and hashes them down to the key size.
+     */
+    private static byte[] privacyAmplification(long[] matchingBases, int matchingBitsCount,
+                                               long[] aliceBits) throws Exception {
+        byte[] rawKey = new byte[(matchingBitsCount + 7) / 8];
+        int k = 0;
+        for (int w = 0; w < matchingBases.length; w++) {
+            long matching = matchingBases[w];
+            while (matching != 0) {
+                long lowest = matching & -matching;
+                if ((aliceBits[w] & lowest) != 0) {
+                    rawKey[k >>> 3] |= (byte) (0x80 >>> (k & 7));
+                }
+                k++;
+                matching ^= lowest;
             }
         }
 
         // Apply privacy amplification hash (SHA-256)
-        MessageDigest hash = MessageDigest.getInstance("SHA-256");
+        MessageDigest hash = CryptoPrimitives.messageDigest("SHA-256");
         byte[] amplifiedKey = hash.digest(rawKey);
 
         // Extract exactly KEY_SIZE_BYTES
@@ -249,6 +240,24 @@ public class QKDService {
         return finalKey;
     }
 
+    private static int words(int bitCount) {
+        return (bitCount + 63) >>> 6;
+    }
+
+    private static void clearUnusedBits(long[] bits, int count) {
+        if ((count & 63) != 0) {
+            bits[bits.length - 1] &= (1L << count) - 1;
+        }
+    }
+
+    private static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
     // === Inner Classes ===
 
     public static class QKDResult {
@@ -272,35 +281,48 @@ public class QKDService {
         }
     }
 
+    /**
+     * BB84 metadata stored with each QKD vote. Bases and bits are bit sets of
+     * numberOfQubits bits (long[] words, BitSet order).
+     *
+     * Stored form ({@link #serialize()}): Base64 of a version byte (1), numberOfQubits,
+     * matchingBitsCount (ints), errorRate (double), then aliceBases, aliceBits and bobBases
+     * as ceil(numberOfQubits / 8) bytes each, least significant bit first. Votes encrypted
+     * before that stored Gson JSON with List&lt;Integer&gt; fields; {@link #parse(String)}
+     * still reads those.
+     */
     public static class QKDMetadata {
-        private List<Integer> aliceBases;
-        private List<Integer> aliceBits;
-        private List<Integer> bobBases;
+        private static final int FORMAT_VERSION = 1;
+        private static final int HEADER_BYTES = 1 + 4 + 4 + 8;
+
+        private long[] aliceBases;
+        private long[] aliceBits;
+        private long[] bobBases;
         private double errorRate;
         private int numberOfQubits;
         private int matchingBitsCount;
 
-        public List<Integer> getAliceBases() {
+        public long[] getAliceBases() {
             return aliceBases;
         }
 
-        public void setAliceBases(List<Integer> aliceBases) {
+        public void setAliceBases(long[] aliceBases) {
             this.aliceBases = aliceBases;
         }
 
-        public List<Integer> getAliceBits() {
+        public long[] getAliceBits() {
             return aliceBits;
         }
 
-        public void setAliceBits(List<Integer> aliceBits) {
+        public void setAliceBits(long[] aliceBits) {
             this.aliceBits = aliceBits;
         }
 
-        public List<Integer> getBobBases() {
+        public long[] getBobBases() {
             return bobBases;
         }
 
-        public void setBobBases(List<Integer> bobBases) {
+        public void setBobBases(long[] bobBases) {
             this.bobBases = bobBases;
         }
 
@@ -327,40 +349,96 @@ public class QKDService {
         public void setMatchingBitsCount(int matchingBitsCount) {
             this.matchingBitsCount = matchingBitsCount;
         }
-    }
 
-    private static class QKDReconciliationResult {
-        private List<Integer> matchingBits;
-        private List<Integer> aliceBits;
-        private List<Integer> bobBits;
+        public String serialize() {
+            int bytesPerSet = (numberOfQubits + 7) / 8;
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 3 * bytesPerSet);
+            buffer.put((byte) FORMAT_VERSION);
+            buffer.putInt(numberOfQubits);
+            buffer.putInt(matchingBitsCount);
+            buffer.putDouble(errorRate);
+            putBits(buffer, aliceBases, bytesPerSet);
+            putBits(buffer, aliceBits, bytesPerSet);
+            putBits(buffer, bobBases, bytesPerSet);
+            return Base64.getEncoder().encodeToString(buffer.array());
+        }
+
+        /**
+         * Reads metadata written by {@link #serialize()} or legacy JSON metadata.
+         */
+        public static QKDMetadata parse(String stored) {
+            if (stored == null) {
+                throw new IllegalArgumentException("QKD metadata missing from vote payload");
+            }
+            if (stored.trim().startsWith("{")) {
+                return new Gson().fromJson(stored, LegacyQKDMetadata.class).toMetadata();
+            }
 
-        public List<Integer> getMatchingBits() {
-            return matchingBits;
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(stored));
+            if (buffer.remaining() < HEADER_BYTES || buffer.get() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported QKD metadata format");
+            }
+            QKDMetadata metadata = new QKDMetadata();
+            metadata.numberOfQubits = buffer.getInt();
+            metadata.matchingBitsCount = buffer.getInt();
+            metadata.errorRate = buffer.getDouble();
+            int bytesPerSet = (metadata.numberOfQubits + 7) / 8;
+            if (metadata.numberOfQubits < 0 || buffer.remaining() != 3L * bytesPerSet) {
+                throw new IllegalArgumentException("Truncated QKD metadata");
+            }
+            metadata.aliceBases = getBits(buffer, metadata.numberOfQubits);
+            metadata.aliceBits = getBits(buffer, metadata.numberOfQubits);
+            metadata.bobBases = getBits(buffer, metadata.numberOfQubits);
+            return metadata;
         }
 
-        public void setMatchingBits(List<Integer> matchingBits) {
-            this.matchingBits = matchingBits;
+        private static void putBits(ByteBuffer buffer, long[] bits, int byteCount) {
+            for (int i = 0; i < byteCount; i++) {
+                buffer.put((byte) (bits[i >>> 3] >>> ((i & 7) << 3)));
+            }
         }
 
-        public List<Integer> getAliceBits() {
-            return aliceBits;
+        private static long[] getBits(ByteBuffer buffer, int count) {
+            long[] bits = new long[words(count)];
+            for (int i = 0; i < (count + 7) / 8; i++) {
+                bits[i >>> 3] |= (buffer.get() & 0xFFL) << ((i & 7) << 3);
+            }
+            clearUnusedBits(bits, count);
+            return bits;
         }
+    }
 
-        public void setAliceBits(List<Integer> aliceBits) {
-            this.aliceBits = aliceBits;
-        }
+    /**
+     * JSON shape of QKD metadata in votes encrypted before the packed format.
+     */
+    private static class LegacyQKDMetadata {
+        private List<Integer> aliceBases;
+        private List<Integer> aliceBits;
+        private List<Integer> bobBases;
+        private double errorRate;
+        private int numberOfQubits;
+        private int matchingBitsCount;
 
-        public List<Integer> getBobBits() {
-            return bobBits;
+        QKDMetadata toMetadata() {
+            QKDMetadata metadata = new QKDMetadata();
+            int count = aliceBases != null ? aliceBases.size() : 0;
+            metadata.setNumberOfQubits(count);
+            metadata.setAliceBases(toBits(aliceBases, count));
+            metadata.setAliceBits(aliceBits == null || aliceBits.isEmpty() ? null : toBits(aliceBits, count));
+            metadata.setBobBases(toBits(bobBases, count));
+            metadata.setErrorRate(errorRate);
+            metadata.setMatchingBitsCount(matchingBitsCount);
+            return metadata;
         }
 
-        public void setBobBits(List<Integer> bobBits) {
-            this.bobBits = bobBits;
+        private static long[] toBits(List<Integer> values, int count) {
+            long[] bits = new long[words(count)];
+            for (int i = 0; values != null && i < count; i++) {
+                if (values.get(i) != 0) {
+                    bits[i >>> 6] |= 1L << i;
+                }
+            }
+            return bits;
         }
     }
 }
-
-
-
-
-
@@ -1,30 +1,154 @@
 package com.securevoting.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class SteganographyService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SteganographyService.class);
+
+    // Comma-separated cover images; votes rotate through them in order
+    @Value("${steganography.cover.paths:cover.png}")
+    private String coverPaths;
+
+    @Value("${steganography.png.compression-level:6}")
+    private int pngCompressionLevel;
+
+    @Value("${steganography.png.filter:adaptive}")
+    private String pngFilter;
+
+    // Rows per independently compressed block of the cover that can be reused as-is
+    @Value("${steganography.png.segment-rows:64}")
+    private int pngSegmentRows;
+
+    private PngEncoder pngEncoder;
+
+    // Decoded covers - never written to, every embed works on its own copy
+    private volatile List<CoverImage> covers = Collections.emptyList();
+    // lastModified of configured covers that exist but could not be decoded, by path
+    private volatile Map<String, Long> failedCovers = Collections.emptyMap();
+    private final AtomicInteger nextCover = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        pngEncoder = new PngEncoder(pngCompressionLevel, PngEncoder.Filter.valueOf(pngFilter.trim().toUpperCase()),
+                pngSegmentRows);
+        reloadCovers();
+    }
+
+    /**
+     * Decodes every configured cover image once. Covers that are missing or unreadable are
+     * skipped with a warning so the application still starts; embedding fails until one loads.
+     */
+    public synchronized void reloadCovers() {
+        List<CoverImage> loaded = new ArrayList<>();
+        Map<String, Long> failed = new HashMap<>();
+        for (String path : coverPaths.split(",")) {
+            if (path.trim().isEmpty()) {
+                continue;
+            }
+            File file = new File(path.trim());
+            if (!file.exists()) {
+                logger.warn("Cover image {} not found, skipping it", file.getPath());
+                continue;
+            }
+            long lastModified = file.lastModified();
+            try {
+                BufferedImage image = ImageIO.read(file);
+                if (image == null) {
+                    logger.warn("Cover image {} is not a readable image, skipping it", file.getPath());
+                    failed.put(file.getPath(), lastModified);
+                    continue;
+                }
+                loaded.add(new CoverImage(file, lastModified, image, pngEncoder.precompress(image)));
+            } catch (IOException e) {
+                logger.warn("Failed to decode cover image {}: {}", file.getPath(), e.getMessage());
+                failed.put(file.getPath(), lastModified);
+            }
+        }
+        covers = Collections.unmodifiableList(loaded);
+        failedCovers = failed;
+        logger.info("Loaded {} cover image(s) for steganography", loaded.size());
+    }
+
+    // Hot reload: re-decode the covers when a file changes, appears or disappears. A file that
+    // failed to decode is skipped until its lastModified changes.
+    @Scheduled(fixedDelayString = "${steganography.cover.reload-check.ms:30000}")
+    public void reloadChangedCovers() {
+        List<CoverImage> current = covers;
+        Map<String, Long> failed = failedCovers;
+        int configured = 0;
+        boolean changed = false;
+        for (String path : coverPaths.split(",")) {
+            if (path.trim().isEmpty()) {
+                continue;
+            }
+            File file = new File(path.trim());
+            Long failedAt = failed.get(file.getPath());
+            if (file.exists() && (failedAt == null || failedAt != file.lastModified())) {
+                configured++;
+            }
+        }
+        for (CoverImage cover : current) {
+            if (cover.file.lastModified() != cover.lastModified) {
+                changed = true;
+            }
+        }
+        if (changed || configured != current.size()) {
+            reloadCovers();
+        }
+    }
+
     public byte[] embedData(byte[] data) throws IOException {
-        File coverImageFile = new File("cover.png");
-        if (!coverImageFile.exists()) {
+        List<CoverImage> available = covers;
+        if (available.isEmpty()) {
             throw new IOException("cover.png not found! Please place it in the project root.");
         }
-        BufferedImage coverImage = ImageIO.read(coverImageFile);
-        BufferedImage stegoImage = embed(coverImage, data);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(stegoImage, "png", baos);
-        return baos.toByteArray();
+        CoverImage cover = available.get(Math.floorMod(nextCover.getAndIncrement(), available.size()));
+        BufferedImage stegoImage = embed(cover.copy(), data);
+        // Rows below the payload are identical to the cover, so their compressed data is reused
+        long payloadPixels = ((4L + data.length) * 8 + 2) / 3;
+        int dirtyRows = (int) ((payloadPixels + stegoImage.getWidth() - 1) / stegoImage.getWidth());
+        return pngEncoder.encode(stegoImage, cover.encodedRows, dirtyRows);
     }
 
     public byte[] extractData(byte[] stegoImageData) throws IOException {
+        // The payload sits in the first rows: decode scanlines only until it is complete
+        PngScanlineReader png = PngScanlineReader.open(stegoImageData);
+        if (png != null) {
+            try {
+                return extract(ChannelCursor.scanlines(png), png.getWidth(), png.getHeight());
+            } finally {
+                png.close();
+            }
+        }
         BufferedImage stegoImage = ImageIO.read(new ByteArrayInputStream(stegoImageData));
         return extract(stegoImage);
     }
@@ -33,38 +157,36 @@ public class SteganographyService {
         int width = image.getWidth();
         int height = image.getHeight();
 
-        byte[] dataLengthBytes = new byte[4];
-        dataLengthBytes[0] = (byte) (data.length >> 24);
-        dataLengthBytes[1] = (byte) (data.length >> 16);
-        dataLengthBytes[2] = (byte) (data.length >> 8);
-        dataLengthBytes[3] = (byte) data.length;
-
-        boolean[] dataLengthBits = bytesToBits(dataLengthBytes);
-        boolean[] dataBits = bytesToBits(data);
-
-        boolean[] combinedBits = new boolean[dataLengthBits.length + dataBits.length];
-        System.arraycopy(dataLengthBits, 0, combinedBits, 0, dataLengthBits.length);
-        System.arraycopy(dataBits, 0, combinedBits, dataLengthBits.length, dataBits.length);
-
-        if (combinedBits.length > width * height * 3) {
+        // 32-bit length header followed by the data, MSB first, one bit per R, G, B channel
+        long totalBits = (4L + data.length) * 8;
+        if (totalBits > (long) width * height * 3) {
             throw new IOException("Image is too small to embed data.");
         }
 
-        int bitIndex = 0;
-        for (int y = 0; y < height && bitIndex < combinedBits.length; y++) {
-            for (int x = 0; x < width && bitIndex < combinedBits.length; x++) {
-                int pixel = image.getRGB(x, y);
-                int alpha = (pixel >> 24) & 0xff;
-                int red = (pixel >> 16) & 0xff;
-                int green = (pixel >> 8) & 0xff;
-                int blue = (pixel) & 0xff;
+        ChannelCursor cursor = ChannelCursor.direct(image);
+        int[] rgb = null;
+        int pixels = (int) ((totalBits + 2) / 3);
+        if (cursor == null) {
+            // No direct pixel buffer: bulk-copy the touched rows as ARGB ints and write them back
+            rgb = image.getRGB(0, 0, width, (pixels + width - 1) / width, null, 0, width);
+            cursor = ChannelCursor.packed(rgb, width);
+        }
 
-                if (bitIndex < combinedBits.length) red = (red & 0xFE) | (combinedBits[bitIndex++] ? 1 : 0);
-                if (bitIndex < combinedBits.length) green = (green & 0xFE) | (combinedBits[bitIndex++] ? 1 : 0);
-                if (bitIndex < combinedBits.length) blue = (blue & 0xFE) | (combinedBits[bitIndex++] ? 1 : 0);
+        cursor.writeByte(data.length >> 24);
+        cursor.writeByte(data.length >> 16);
+        cursor.writeByte(data.length >> 8);
+        cursor.writeByte(data.length);
+        for (byte b : data) {
+            cursor.writeByte(b);
+        }
 
-                int newPixel = (alpha << 24) | (red << 16) | (green << 8) | blue;
-                image.setRGB(x, y, newPixel);
+        if (rgb != null) {
+            int fullRows = pixels / width;
+            if (fullRows > 0) {
+                image.setRGB(0, 0, width, fullRows, rgb, 0, width);
+            }
+            if (pixels % width != 0) {
+                image.setRGB(0, fullRows, pixels % width, 1, rgb, fullRows * width, width);
             }
         }
         return image;
@@ -73,69 +195,192 @@ public class SteganographyService {
     private byte[] extract(BufferedImage image) throws IOException {
         int width = image.getWidth();
         int height = image.getHeight();
+        ChannelCursor cursor = ChannelCursor.direct(image);
+        if (cursor == null) {
+            cursor = ChannelCursor.packed(image.getRGB(0, 0, width, height, null, 0, width), width);
+        }
+        return extract(cursor, width, height);
+    }
+
+    private byte[] extract(ChannelCursor cursor, int width, int height) throws IOException {
+        long capacityBits = (long) width * height * 3;
+        if (capacityBits < 32) {
+            throw new IOException("No data or invalid data length found in the image.");
+        }
 
-        boolean[] dataLengthBits = new boolean[32];
-        int bitIndex = 0;
-        for (int y = 0; y < height && bitIndex < 32; y++) {
-            for (int x = 0; x < width && bitIndex < 32; x++) {
-                int pixel = image.getRGB(x, y);
-                int red = (pixel >> 16) & 0xff;
-                int green = (pixel >> 8) & 0xff;
-                int blue = (pixel) & 0xff;
+        // Single pass: the length header and the data are read by the same cursor
+        int dataLength = (cursor.readByte() << 24) | (cursor.readByte() << 16) |
+                (cursor.readByte() << 8) | cursor.readByte();
+        if (dataLength <= 0 || (long) dataLength * 8 > capacityBits - 32) {
+            throw new IOException("No data or invalid data length found in the image.");
+        }
 
-                if (bitIndex < 32) dataLengthBits[bitIndex++] = (red & 1) == 1;
-                if (bitIndex < 32) dataLengthBits[bitIndex++] = (green & 1) == 1;
-                if (bitIndex < 32) dataLengthBits[bitIndex++] = (blue & 1) == 1;
-            }
+        byte[] data = new byte[dataLength];
+        for (int i = 0; i < dataLength; i++) {
+            data[i] = (byte) cursor.readByte();
         }
+        return data;
+    }
 
-        byte[] dataLengthBytes = bitToBytes(dataLengthBits);
-        int dataLength = ((dataLengthBytes[0] & 0xFF) << 24) |
-                ((dataLengthBytes[1] & 0xFF) << 16) |
-                ((dataLengthBytes[2] & 0xFF) << 8) |
-                (dataLengthBytes[3] & 0xFF);
+    /**
+     * Walks the R, G, B channels of an image in row-major order, reading or replacing
+     * their least significant bits. Works directly on the raster's byte or int buffer
+     * for 8-bit sRGB layouts, or on PNG scanlines decoded on demand while reading;
+     * other image types go through an ARGB int copy.
+     */
+    private static final class ChannelCursor {
+        private static final int[] ARGB_SHIFTS = {16, 8, 0};
 
-        if (dataLength <= 0 || dataLength * 8 > width * height * 3 - 32) {
-            throw new IOException("No data or invalid data length found in the image.");
+        private byte[] bytes;
+        private final int[] ints;
+        private final PngScanlineReader rows;
+        private final int width;
+        private final int pixelStride;
+        private final int scanlineStride;
+        // byte buffers: R, G, B offsets inside a pixel; int buffers: R, G, B bit shifts
+        private final int[] channels;
+
+        private int x;
+        private int rowStart;
+        private int pixel;
+        private int channel;
+
+        private boolean rowPending;
+
+        private ChannelCursor(byte[] bytes, int[] ints, PngScanlineReader rows, int offset, int width,
+                              int pixelStride, int scanlineStride, int[] channels) {
+            this.bytes = bytes;
+            this.ints = ints;
+            this.rows = rows;
+            this.rowPending = rows != null;
+            this.width = width;
+            this.pixelStride = pixelStride;
+            this.scanlineStride = scanlineStride;
+            this.channels = channels;
+            this.rowStart = offset;
+            this.pixel = offset;
         }
 
-        boolean[] extractedBits = new boolean[dataLength * 8];
-        bitIndex = 0;
-        int bitsToSkip = 32;
-        int currentBitSkippedCount = 0;
+        static ChannelCursor packed(int[] argb, int width) {
+            return new ChannelCursor(null, argb, null, 0, width, 1, width, ARGB_SHIFTS);
+        }
 
-        for (int y = 0; y < height && bitIndex < extractedBits.length; y++) {
-            for (int x = 0; x < width && bitIndex < extractedBits.length; x++) {
-                int pixel = image.getRGB(x, y);
-                int red = (pixel >> 16) & 0xff;
-                int green = (pixel >> 8) & 0xff;
-                int blue = (pixel) & 0xff;
+        // PNG samples are stored R, G, B(, A); rows are decoded only when the cursor reaches them
+        static ChannelCursor scanlines(PngScanlineReader png) {
+            int bytesPerPixel = png.getBytesPerPixel();
+            return new ChannelCursor(null, null, png, 0, png.getWidth(), bytesPerPixel,
+                    png.getWidth() * bytesPerPixel, new int[]{0, 1, 2});
+        }
 
-                if (currentBitSkippedCount < bitsToSkip) currentBitSkippedCount++; else if (bitIndex < extractedBits.length) extractedBits[bitIndex++] = (red & 1) == 1;
-                if (currentBitSkippedCount < bitsToSkip) currentBitSkippedCount++; else if (bitIndex < extractedBits.length) extractedBits[bitIndex++] = (green & 1) == 1;
-                if (currentBitSkippedCount < bitsToSkip) currentBitSkippedCount++; else if (bitIndex < extractedBits.length) extractedBits[bitIndex++] = (blue & 1) == 1;
+        // Returns null when the image has no buffer layout whose bits map 1:1 to getRGB values
+        static ChannelCursor direct(BufferedImage image) {
+            WritableRaster raster = image.getRaster();
+            ColorModel colorModel = image.getColorModel();
+            DataBuffer buffer = raster.getDataBuffer();
+            SampleModel sampleModel = raster.getSampleModel();
+            if (raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+                    || buffer.getNumBanks() != 1 || colorModel.isAlphaPremultiplied()
+                    || !colorModel.getColorSpace().isCS_sRGB()) {
+                return null;
             }
+
+            if (buffer instanceof DataBufferByte && sampleModel instanceof PixelInterleavedSampleModel
+                    && colorModel instanceof ComponentColorModel) {
+                PixelInterleavedSampleModel interleaved = (PixelInterleavedSampleModel) sampleModel;
+                int bands = interleaved.getNumBands();
+                if (bands != 3 && bands != 4) {
+                    return null;
+                }
+                for (int size : interleaved.getSampleSize()) {
+                    if (size != 8) {
+                        return null;
+                    }
+                }
+                int[] bandOffsets = interleaved.getBandOffsets();
+                return new ChannelCursor(((DataBufferByte) buffer).getData(), null, null, buffer.getOffset(),
+                        raster.getWidth(), interleaved.getPixelStride(), interleaved.getScanlineStride(),
+                        new int[]{bandOffsets[0], bandOffsets[1], bandOffsets[2]});
+            }
+
+            if (buffer instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel
+                    && colorModel instanceof DirectColorModel) {
+                DirectColorModel direct = (DirectColorModel) colorModel;
+                if (direct.getRedMask() != 0xFF0000 || direct.getGreenMask() != 0xFF00 || direct.getBlueMask() != 0xFF) {
+                    return null;
+                }
+                return new ChannelCursor(null, ((DataBufferInt) buffer).getData(), null, buffer.getOffset(),
+                        raster.getWidth(), 1, ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride(),
+                        ARGB_SHIFTS);
+            }
+            return null;
         }
-        return bitToBytes(extractedBits);
-    }
 
-    private boolean[] bytesToBits(byte[] bytes) {
-        boolean[] bits = new boolean[bytes.length * 8];
-        for (int i = 0; i < bytes.length; i++) {
-            for (int j = 0; j < 8; j++) {
-                bits[(i * 8) + j] = ((bytes[i] >> (7 - j)) & 1) == 1;
+        void writeByte(int value) {
+            for (int shift = 7; shift >= 0; shift--) {
+                int bit = (value >> shift) & 1;
+                if (bytes != null) {
+                    int index = pixel + channels[channel];
+                    bytes[index] = (byte) ((bytes[index] & 0xFE) | bit);
+                } else {
+                    int mask = 1 << channels[channel];
+                    ints[pixel] = (ints[pixel] & ~mask) | (bit << channels[channel]);
+                }
+                advance();
             }
         }
-        return bits;
-    }
 
-    private byte[] bitToBytes(boolean[] bits) {
-        byte[] bytes = new byte[bits.length / 8];
-        for (int i = 0; i < bits.length; i++) {
-            if (bits[i]) {
-                bytes[i / 8] |= (128 >> (i % 8));
+        int readByte() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 8; i++) {
+                if (rowPending) {
+                    bytes = rows.nextRow();
+                    rowPending = false;
+                }
+                int bit = bytes != null
+                        ? bytes[pixel + channels[channel]] & 1
+                        : (ints[pixel] >> channels[channel]) & 1;
+                value = (value << 1) | bit;
+                advance();
+            }
+            return value;
+        }
+
+        private void advance() {
+            if (++channel < 3) {
+                return;
             }
+            channel = 0;
+            if (++x < width) {
+                pixel += pixelStride;
+            } else if (rows != null) {
+                x = 0;
+                pixel = 0;
+                rowPending = true;
+            } else {
+                x = 0;
+                rowStart += scanlineStride;
+                pixel = rowStart;
+            }
+        }
+    }
+
+    private static final class CoverImage {
+        private final File file;
+        private final long lastModified;
+        private final BufferedImage template;
+        private final PngEncoder.EncodedRows encodedRows;
+
+        private CoverImage(File file, long lastModified, BufferedImage template, PngEncoder.EncodedRows encodedRows) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.template = template;
+            this.encodedRows = encodedRows;
+        }
+
+        // Raster-level copy of the decoded pixels, no PNG decoding involved
+        private BufferedImage copy() {
+            ColorModel colorModel = template.getColorModel();
+            return new BufferedImage(colorModel, template.copyData(null), colorModel.isAlphaPremultiplied(), null);
         }
-        return bytes;
     }
-}
\ No newline at end of file
+}
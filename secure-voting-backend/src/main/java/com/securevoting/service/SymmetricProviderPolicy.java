@@ -0,0 +1,229 @@
+package com.securevoting.service;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.management.ManagementFactory;
+import java.security.GeneralSecurityException;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chooses the JCA provider for AES-GCM vote encryption.
+ *
+ * BouncyCastle stays the provider for ECDH, digests and PQC; AES-GCM can run on the
+ * JDK's SunJCE, whose GCM uses the AES-NI and CLMUL intrinsics. At startup every
+ * candidate must pass a known-answer test, interoperate with BouncyCastle in both
+ * directions and reject a forged tag. In "auto" mode SunJCE is used if it passes and
+ * the JVM has its hardware AES paths enabled; otherwise the passing candidate with the
+ * fastest startup timing is used. A configured provider that fails the check falls
+ * back to BouncyCastle.
+ *
+ * GCM output does not depend on the provider, so blocks encrypted under any provider
+ * decrypt unchanged.
+ */
+@Service
+public class SymmetricProviderPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(SymmetricProviderPolicy.class);
+
+    public static final String AES_GCM = "AES/GCM/NoPadding";
+    private static final String PROVIDER_AUTO = "auto";
+    private static final String PROVIDER_SUNJCE = "SunJCE";
+    private static final String PROVIDER_BC = BouncyCastleProvider.PROVIDER_NAME;
+    private static final String[] CANDIDATES = {PROVIDER_SUNJCE, PROVIDER_BC};
+    private static final int GCM_TAG_LENGTH_BITS = 128;
+
+    // NIST GCM specification test case 14: AES-256, zero key, zero IV, one zero block
+    private static final byte[] KAT_KEY = new byte[32];
+    private static final byte[] KAT_IV = new byte[12];
+    private static final byte[] KAT_PLAINTEXT = new byte[16];
+    private static final byte[] KAT_CIPHERTEXT = hex(
+            "cea7403d4d606b6e074ec5d3baf39d18" + "d0d1c8a799996bf0265b98b5d48ab919");
+
+    private static final int BENCHMARK_PASSES = 3;
+    private static final int BENCHMARK_ROUNDS = 100;
+    private static final int BENCHMARK_PAYLOAD_BYTES = 1024;
+
+    // auto, SunJCE or BC
+    @Value("${crypto.symmetric.provider:auto}")
+    private String configuredProvider;
+
+    private volatile String aesGcmProvider = PROVIDER_BC;
+    private final Map<String, Object> selfCheck = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (Security.getProvider(PROVIDER_BC) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+
+        List<String> passed = new ArrayList<>();
+        for (String candidate : CANDIDATES) {
+            if (!PROVIDER_AUTO.equalsIgnoreCase(configuredProvider) && !candidate.equalsIgnoreCase(configuredProvider)) {
+                continue;
+            }
+            String failure = check(candidate);
+            if (failure != null) {
+                logger.warn("AES-GCM provider {} failed self-check: {}", candidate, failure);
+                selfCheck.put(candidate, "failed: " + failure);
+            } else {
+                passed.add(candidate);
+            }
+        }
+
+        // Passes alternate between candidates and the best pass counts
+        long[] bestNanos = new long[passed.size()];
+        Arrays.fill(bestNanos, Long.MAX_VALUE);
+        for (int pass = 0; pass < BENCHMARK_PASSES; pass++) {
+            for (int i = 0; i < passed.size(); i++) {
+                bestNanos[i] = Math.min(bestNanos[i], timeRoundTrips(passed.get(i)));
+            }
+        }
+        String selected = null;
+        long selectedNanos = Long.MAX_VALUE;
+        for (int i = 0; i < passed.size(); i++) {
+            selfCheck.put(passed.get(i), bestNanos[i] / BENCHMARK_ROUNDS + " ns/op");
+            if (bestNanos[i] < selectedNanos) {
+                selectedNanos = bestNanos[i];
+                selected = passed.get(i);
+            }
+        }
+
+        // Startup timings run before the intrinsics are compiled and understate SunJCE,
+        // which is several times faster than BouncyCastle once they are
+        if (passed.contains(PROVIDER_SUNJCE) && hardwareAesEnabled()) {
+            selfCheck.put("hardwareAes", true);
+            selected = PROVIDER_SUNJCE;
+        }
+
+        if (selected == null) {
+            logger.warn("No usable AES-GCM provider for setting '{}', using {}", configuredProvider, PROVIDER_BC);
+            selected = PROVIDER_BC;
+        }
+        aesGcmProvider = selected;
+        logger.info("AES-GCM provider: {} (setting: {}, self-check: {})", aesGcmProvider, configuredProvider, selfCheck);
+    }
+
+    public String getAesGcmProvider() {
+        return aesGcmProvider;
+    }
+
+    /**
+     * @return a per-thread AES-GCM cipher of the selected provider; initialize before use
+     */
+    public Cipher aesGcmCipher() throws GeneralSecurityException {
+        return CryptoPrimitives.cipher(AES_GCM, aesGcmProvider);
+    }
+
+    /**
+     * @return true if HotSpot reports the AES (and, on x86, CLMUL) instruction paths
+     *         that SunJCE's GCM intrinsics rely on as enabled
+     */
+    private static boolean hardwareAesEnabled() {
+        try {
+            HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            if (hotSpot == null || !"true".equals(hotSpot.getVMOption("UseAES").getValue())) {
+                return false;
+            }
+            try {
+                return "true".equals(hotSpot.getVMOption("UseCLMUL").getValue());
+            } catch (IllegalArgumentException notX86) {
+                return true;
+            }
+        } catch (IllegalArgumentException | LinkageError e) {
+            // Not a HotSpot JVM
+            return false;
+        }
+    }
+
+    /**
+     * @return null if the provider passes, otherwise the reason
+     */
+    private static String check(String provider) {
+        try {
+            SecretKey katKey = new SecretKeySpec(KAT_KEY, "AES");
+            if (!Arrays.equals(crypt(provider, Cipher.ENCRYPT_MODE, katKey, KAT_IV, KAT_PLAINTEXT), KAT_CIPHERTEXT)
+                    || !Arrays.equals(crypt(provider, Cipher.DECRYPT_MODE, katKey, KAT_IV, KAT_CIPHERTEXT), KAT_PLAINTEXT)) {
+                return "known-answer mismatch";
+            }
+
+            SecretKey key = new SecretKeySpec(random(32), "AES");
+            byte[] iv = random(12);
+            byte[] plaintext = random(BENCHMARK_PAYLOAD_BYTES + 7);
+            byte[] ciphertext = crypt(provider, Cipher.ENCRYPT_MODE, key, iv, plaintext);
+            if (!Arrays.equals(ciphertext, crypt(PROVIDER_BC, Cipher.ENCRYPT_MODE, key, iv, plaintext))
+                    || !Arrays.equals(plaintext, crypt(PROVIDER_BC, Cipher.DECRYPT_MODE, key, iv, ciphertext))) {
+                return "output differs from " + PROVIDER_BC;
+            }
+
+            ciphertext[ciphertext.length - 1] ^= 1;
+            try {
+                crypt(provider, Cipher.DECRYPT_MODE, key, iv, ciphertext);
+                return "accepted a forged tag";
+            } catch (AEADBadTagException expected) {
+                return null;
+            }
+        } catch (GeneralSecurityException | RuntimeException e) {
+            return e.toString();
+        }
+    }
+
+    private static long timeRoundTrips(String provider) {
+        try {
+            SecretKey key = new SecretKeySpec(random(32), "AES");
+            byte[] plaintext = random(BENCHMARK_PAYLOAD_BYTES);
+            byte[] iv = random(12);
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+                // Fresh nonce per encryption; providers refuse a repeated key and IV
+                iv[0]++;
+                iv[1] += iv[0] == 0 ? 1 : 0;
+                Cipher cipher = CryptoPrimitives.cipher(AES_GCM, provider);
+                cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv));
+                byte[] ciphertext = cipher.doFinal(plaintext);
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv));
+                cipher.doFinal(ciphertext);
+            }
+            return System.nanoTime() - start;
+        } catch (GeneralSecurityException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // Fresh instance per call: the checks encrypt the same key and IV more than once
+    private static byte[] crypt(String provider, int mode, SecretKey key, byte[] iv, byte[] input)
+            throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(AES_GCM, provider);
+        cipher.init(mode, key, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv));
+        return cipher.doFinal(input);
+    }
+
+    private static byte[] random(int length) {
+        byte[] bytes = new byte[length];
+        CryptoPrimitives.secureRandom().nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,210 @@
+package com.securevoting.service;
+
+import com.securevoting.model.BlockHeader;
+import com.securevoting.repository.BlockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Tally results by (election, chain tip height), so dashboards polling at the same tip
+ * are answered from memory.
+ *
+ * Writers report every block they commit through {@link #blocksAppended}: results of the
+ * elections that received a block are dropped, the others are advanced to the new tip
+ * since their counts cannot have changed. A result computed while a block was being
+ * appended keeps the tip it started from and is never served at the new one; likewise a
+ * result computed before {@link #invalidateAll} keeps the old generation.
+ */
+@Service
+public class TallyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TallyCache.class);
+
+    private static final int UNKNOWN_TIP = Integer.MIN_VALUE;
+
+    @Value("${tally.cache.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private BlockRepository blockRepository;
+
+    private final Map<Integer, Entry<ElectionResult>> elections = new ConcurrentHashMap<>();
+    private volatile Entry<Map<String, Map<String, Integer>>> all;
+    private volatile int tipHeight = UNKNOWN_TIP;
+    private volatile long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @return the election's result at the current tip, computed and cached on a miss
+     */
+    public ElectionResult election(int electionId, IntFunction<ElectionResult> compute) {
+        long generation = this.generation;
+        int tip = currentTip();
+        Entry<ElectionResult> entry = elections.get(electionId);
+        if (entry != null && entry.matches(tip, generation)) {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        ElectionResult result = compute.apply(electionId);
+        if (enabled) {
+            elections.put(electionId, new Entry<>(tip, generation, result));
+        }
+        return result;
+    }
+
+    /**
+     * @return the whole-chain tally at the current tip, computed and cached on a miss
+     */
+    public Map<String, Map<String, Integer>> all(Supplier<Map<String, Map<String, Integer>>> compute) {
+        long generation = this.generation;
+        int tip = currentTip();
+        Entry<Map<String, Map<String, Integer>>> entry = all;
+        if (entry != null && entry.matches(tip, generation)) {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        Map<String, Map<String, Integer>> result = compute.get();
+        if (enabled) {
+            all = new Entry<>(tip, generation, result);
+        }
+        return result;
+    }
+
+    /**
+     * Moves the cache to a new chain tip after blocks have been committed.
+     *
+     * @param tipHeight   Height of the last committed block
+     * @param electionIds Elections of the committed blocks (null for blocks without one)
+     */
+    public synchronized void blocksAppended(int tipHeight, Collection<Integer> electionIds) {
+        if (tipHeight <= this.tipHeight) {
+            // A block was rewritten below the tip, which results in flight cannot be told apart from
+            invalidateAll();
+            return;
+        }
+        this.tipHeight = tipHeight;
+        all = null;
+        for (Map.Entry<Integer, Entry<ElectionResult>> cached : elections.entrySet()) {
+            if (electionIds.contains(cached.getKey())) {
+                elections.remove(cached.getKey());
+            } else {
+                Entry<ElectionResult> entry = cached.getValue();
+                cached.setValue(new Entry<>(tipHeight, entry.generation, entry.value));
+            }
+        }
+    }
+
+    /**
+     * Drops every result, e.g. after candidates were added, renamed or removed.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        all = null;
+        elections.clear();
+    }
+
+    /**
+     * {@link #invalidateAll()} once the current transaction commits, so a tally running
+     * meanwhile cannot cache what the transaction is replacing.
+     */
+    public void invalidateAllAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateAll();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateAll();
+            }
+        });
+    }
+
+    private int currentTip() {
+        int tip = tipHeight;
+        if (tip != UNKNOWN_TIP) {
+            return tip;
+        }
+        synchronized (this) {
+            if (tipHeight == UNKNOWN_TIP) {
+                tipHeight = blockRepository.findTopByOrderByBlockHeightDesc().map(BlockHeader::getBlockHeight).orElse(-1);
+                logger.debug("Tally cache tip loaded at height {}", tipHeight);
+            }
+            return tipHeight;
+        }
+    }
+
+    /**
+     * @return cached elections, tip height and hit/miss counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("tipHeight", tipHeight == UNKNOWN_TIP ? null : tipHeight);
+        stats.put("cachedElections", elections.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+
+    /**
+     * One election's counts, by candidate name and by candidate id. Shared between
+     * readers, so both maps are unmodifiable.
+     */
+    public static final class ElectionResult {
+        private final String electionName;
+        private final Map<String, Integer> byName;
+        private final Map<Integer, Integer> byCandidate;
+
+        public ElectionResult(String electionName, Map<String, Integer> byName, Map<Integer, Integer> byCandidate) {
+            this.electionName = electionName;
+            this.byName = byName;
+            this.byCandidate = byCandidate;
+        }
+
+        public String getElectionName() {
+            return electionName;
+        }
+
+        public Map<String, Integer> getByName() {
+            return byName;
+        }
+
+        public Map<Integer, Integer> getByCandidate() {
+            return byCandidate;
+        }
+    }
+
+    private static final class Entry<T> {
+        private final int tipHeight;
+        private final long generation;
+        private final T value;
+
+        private Entry(int tipHeight, long generation, T value) {
+            this.tipHeight = tipHeight;
+            this.generation = generation;
+            this.value = value;
+        }
+
+        private boolean matches(int tipHeight, long generation) {
+            return this.tipHeight == tipHeight && this.generation == generation;
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package com.securevoting.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.securevoting.model.Block;
+import com.securevoting.model.Candidate;
+import com.securevoting.model.HomomorphicTally;
+import com.securevoting.model.TallyCheckpoint;
+import com.securevoting.model.VoteEntry;
+import com.securevoting.repository.BlockRepository;
+import com.securevoting.repository.CandidateRepository;
+import com.securevoting.repository.TallyCheckpointRepository;
+import com.securevoting.repository.VoteEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Streaming, incremental vote tally.
+ *
+ * Blocks are read in keyset pages (block_height above the last height seen), so at most
+ * two pages of stego images are in memory whatever the chain length: while the vote
+ * entries of one page are decrypted on a dedicated ForkJoin pool, the next page is
+ * fetched. Each leaf task counts into its own {@link Counts}, which are merged as the
+ * tasks join. Votes are counted by candidate id into an array indexed by the candidate's
+ * ordinal within the election; names are only looked up when results are returned.
+ *
+ * Each election's counts are persisted as a {@link TallyCheckpoint} with the height of
+ * the last block counted, so repeated tallies only decrypt the blocks added since. Votes
+ * that failed to decrypt are recorded in the checkpoint and retried by the next tallies,
+ * up to tally.max-vote-attempts in all, without holding the checkpoint back.
+ *
+ * With the homomorphic tally enabled, an election whose every vote carries a homomorphic
+ * ballot is counted by decrypting its aggregate instead, without touching its blocks.
+ *
+ * Results are served from {@link TallyCache} while the chain tip has not moved.
+ */
+@Service
+public class TallyEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TallyEngine.class);
+
+    private static final Gson GSON = new Gson();
+
+    // Blocks per keyset page; each block holds a stego image of several hundred KB
+    @Value("${tally.page-size:32}")
+    private int pageSize;
+
+    // 0 = one worker per available core
+    @Value("${tally.threads:0}")
+    private int threads;
+
+    // Decryption attempts of a failing vote, over successive tallies, before it is left out
+    @Value("${tally.max-vote-attempts:3}")
+    private int maxVoteAttempts;
+
+    @Autowired
+    private BlockRepository blockRepository;
+
+    @Autowired
+    private VoteEntryRepository voteEntryRepository;
+
+    @Autowired
+    private TallyCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private UnifiedCryptoService cryptoService;
+
+    @Autowired
+    private HomomorphicTallyService homomorphicTallyService;
+
+    @Autowired
+    private CandidateRepository candidateRepository;
+
+    @Autowired
+    private TallyCache tallyCache;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        pool = new ForkJoinPool(threads);
+        logger.info("Tally engine started - page size: {}, workers: {}", pageSize, threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * @return vote counts of the whole chain by election name, then by candidate name
+     */
+    public Map<String, Map<String, Integer>> tallyAll() {
+        return tallyCache.all(this::computeAll);
+    }
+
+    private Map<String, Map<String, Integer>> computeAll() {
+        Map<String, Map<String, Integer>> results = new HashMap<>();
+        // Blocks without an election (the Genesis Block) are scanned without a checkpoint
+        Counts unassigned = scan(null, CandidateIndex.EMPTY);
+        addResults(results, unassigned.toMap(CandidateIndex.EMPTY), unassigned.electionName);
+        for (Integer electionId : blockRepository.findElectionIds()) {
+            TallyCache.ElectionResult result = election(electionId);
+            addResults(results, result.getByName(), result.getElectionName());
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    private static void addResults(Map<String, Map<String, Integer>> results, Map<String, Integer> byName,
+                                   String electionName) {
+        if (!byName.isEmpty()) {
+            Map<String, Integer> election = results.computeIfAbsent(electionName, k -> new HashMap<>());
+            byName.forEach((name, count) -> election.merge(name, count, Integer::sum));
+        }
+    }
+
+    /**
+     * @return vote counts of one election's blocks by candidate name
+     */
+    public Map<String, Integer> tallyElection(int electionId) {
+        return election(electionId).getByName();
+    }
+
+    /**
+     * @return vote counts of one election by candidate id, every candidate included;
+     *         legacy votes that name no current candidate are left out
+     */
+    public Map<Integer, Integer> tallyElectionByCandidate(int electionId) {
+        return election(electionId).getByCandidate();
+    }
+
+    private TallyCache.ElectionResult election(int electionId) {
+        return tallyCache.election(electionId, this::computeElection);
+    }
+
+    private TallyCache.ElectionResult computeElection(int electionId) {
+        CandidateIndex index = candidateIndex(electionId);
+        Counts counts = count(electionId, index);
+        Map<Integer, Integer> byCandidate = new HashMap<>();
+        for (int ordinal = 0; ordinal < index.size(); ordinal++) {
+            byCandidate.put(index.ids[ordinal], counts.byCandidate[ordinal]);
+        }
+        return new TallyCache.ElectionResult(counts.electionName,
+                Collections.unmodifiableMap(counts.toMap(index)), Collections.unmodifiableMap(byCandidate));
+    }
+
+    private CandidateIndex candidateIndex(int electionId) {
+        return new CandidateIndex(candidateRepository.findByElectionId(electionId));
+    }
+
+    private Counts count(int electionId, CandidateIndex index) {
+        Counts counts = homomorphicCounts(electionId, index);
+        return counts != null ? counts : scan(electionId, index);
+    }
+
+    /**
+     * Counts an election from its homomorphic aggregate.
+     *
+     * @return null unless every vote of the election has a ballot in the aggregate, e.g. when
+     *         votes were cast before the mode was enabled or while it was turned off
+     */
+    private Counts homomorphicCounts(int electionId, CandidateIndex index) {
+        HomomorphicTally tally = homomorphicTallyService.findTally(electionId).orElse(null);
+        if (tally == null) {
+            return null;
+        }
+        // All votes at the current tip, not only those up to the aggregate's last block
+        long votes = blockRepository.countVotesUpTo(electionId, Integer.MAX_VALUE);
+        if (votes != tally.getBallots()) {
+            logger.warn("Homomorphic tally of election {} holds {} of {} votes, decrypting the votes instead",
+                    electionId, tally.getBallots(), votes);
+            return null;
+        }
+
+        Counts counts = new Counts(index.size());
+        counts.electionName = tally.getElectionName();
+        homomorphicTallyService.decrypt(tally).forEach((candidateId, count) -> {
+            if (count > 0) {
+                counts.add(candidateId, "Candidate #" + candidateId, index, count);
+            }
+        });
+        // All-zero ballots (no matching candidate) are votes for no one
+        counts.votes = tally.getBallots().intValue();
+        return counts;
+    }
+
+    /**
+     * Counts the election's votes from its checkpoint on and moves the checkpoint to the
+     * last block counted. Votes that failed before are retried first, and new failures are
+     * recorded for the next tallies to retry.
+     */
+    private Counts scan(Integer electionId, CandidateIndex index) {
+        long start = System.nanoTime();
+        TallyCheckpoint checkpoint = electionId != null ? loadCheckpoint(electionId) : null;
+        Counts committed = checkpoint != null ? Counts.fromJson(checkpoint.getCounts(), index) : null;
+        if (checkpoint != null && committed == null) {
+            logger.warn("Tally checkpoint of election {} is in an older format, recounting", electionId);
+            checkpoint = null;
+        }
+        if (committed == null) {
+            committed = new Counts(index.size());
+        }
+        int checkpointHeight = checkpoint != null ? checkpoint.getLastBlockHeight() : -1;
+        int committedHeight = checkpointHeight;
+        String committedHash = checkpoint != null ? checkpoint.getLastBlockHash() : null;
+        boolean retried = retryFailed(electionId, committed, index);
+        int pages = 0;
+
+        List<Block> page = fetchPage(electionId, checkpointHeight);
+        while (!page.isEmpty()) {
+            pages++;
+            Block last = page.get(page.size() - 1);
+            List<VoteEntry> entries = voteEntries(page);
+            ForkJoinTask<Counts> decryption = pool.submit(new DecryptTask(entries, index, 0, entries.size(),
+                    Math.max(1, entries.size() / (threads * 4))));
+
+            // Read the next page while this one is decrypted
+            page = page.size() < pageSize ? Collections.emptyList() : fetchPage(electionId, last.getBlockHeight());
+            committed.merge(decryption.join());
+            committedHeight = last.getBlockHeight();
+            committedHash = last.getHash();
+        }
+
+        if (electionId != null && (committedHeight > checkpointHeight || retried)) {
+            checkpointRepository.save(new TallyCheckpoint(electionId, committedHeight, committedHash,
+                    committed.toJson(index), (long) committed.votes));
+        }
+        logger.info("Tallied election {}: {} new votes ({} failed) from {} pages above block {} in {} ms",
+                electionId, committed.votes - (checkpoint != null ? checkpoint.getVotesCounted() : 0),
+                committed.failures, pages, checkpointHeight, (System.nanoTime() - start) / 1_000_000);
+        return committed;
+    }
+
+    /**
+     * Decrypts again the votes that failed in earlier tallies and have attempts left.
+     *
+     * @return whether any vote was retried, i.e. the checkpoint changed
+     */
+    private boolean retryFailed(Integer electionId, Counts counts, CandidateIndex index) {
+        boolean retried = false;
+        for (Map.Entry<String, Integer> failure : new ArrayList<>(counts.failed.entrySet())) {
+            String key = failure.getKey();
+            int attempts = failure.getValue();
+            if (attempts >= maxVoteAttempts) {
+                counts.failures++;
+                continue;
+            }
+            retried = true;
+            VoteEntry entry = failedEntry(key);
+            if (entry == null) {
+                // No longer on the chain, which a replaced chain would have reset anyway
+                counts.failed.remove(key);
+                continue;
+            }
+            Counts retry = decrypt(Collections.singletonList(entry), index, 0, 1);
+            if (retry.failures == 0) {
+                counts.failed.remove(key);
+                counts.merge(retry);
+            } else {
+                counts.failed.put(key, attempts + 1);
+                counts.failures++;
+                if (attempts + 1 >= maxVoteAttempts) {
+                    logger.warn("Vote {} of election {} failed to decrypt {} times, no longer retried",
+                            key, electionId, attempts + 1);
+                }
+            }
+        }
+        return retried;
+    }
+
+    // The vote at "blockHeight:entryIndex", as recorded by decrypt
+    private VoteEntry failedEntry(String key) {
+        int separator = key.indexOf(':');
+        int blockHeight = Integer.parseInt(key.substring(0, separator));
+        int entryIndex = Integer.parseInt(key.substring(separator + 1));
+        Block block = blockRepository.findById(blockHeight).orElse(null);
+        if (block == null) {
+            return null;
+        }
+        if (!block.isMultiVote()) {
+            return entryIndex == 0 ? VoteEntry.fromBlock(block) : null;
+        }
+        return voteEntryRepository.findByBlockHeightOrderByEntryIndexAsc(blockHeight).stream()
+                .filter(entry -> entry.getEntryIndex() == entryIndex)
+                .findFirst()
+                .orElse(null);
+    }
+
+    // The election's checkpoint, unless the block it ends at has been replaced
+    private TallyCheckpoint loadCheckpoint(int electionId) {
+        TallyCheckpoint checkpoint = checkpointRepository.findById(electionId).orElse(null);
+        if (checkpoint != null && !blockRepository.findHashByBlockHeight(checkpoint.getLastBlockHeight())
+                .map(checkpoint.getLastBlockHash()::equals).orElse(false)) {
+            logger.warn("Tally checkpoint of election {} does not match block {}, recounting",
+                    electionId, checkpoint.getLastBlockHeight());
+            return null;
+        }
+        return checkpoint;
+    }
+
+    private List<Block> fetchPage(Integer electionId, int afterHeight) {
+        PageRequest limit = PageRequest.of(0, pageSize);
+        return electionId == null
+                ? blockRepository.findByElectionIdIsNullAndBlockHeightGreaterThanOrderByBlockHeightAsc(afterHeight, limit)
+                : blockRepository.findByElectionIdAndBlockHeightGreaterThanOrderByBlockHeightAsc(electionId, afterHeight, limit);
+    }
+
+    // The votes of a page in chain order; the entries of all multi-vote blocks come in one query
+    private List<VoteEntry> voteEntries(List<Block> page) {
+        List<VoteEntry> entries = new ArrayList<>(page.size());
+        List<Integer> multiVoteHeights = new ArrayList<>();
+        for (Block block : page) {
+            if ("SYSTEM".equals(block.getVoterId())) {
+                continue;
+            }
+            if (block.isMultiVote()) {
+                multiVoteHeights.add(block.getBlockHeight());
+            } else {
+                entries.add(VoteEntry.fromBlock(block));
+            }
+        }
+        if (!multiVoteHeights.isEmpty()) {
+            entries.addAll(voteEntryRepository.findByBlockHeightInOrderByBlockHeightAscEntryIndexAsc(multiVoteHeights));
+        }
+        return entries;
+    }
+
+    private Counts decrypt(List<VoteEntry> entries, CandidateIndex index, int from, int to) {
+        Counts counts = new Counts(index.size());
+        for (int i = from; i < to; i++) {
+            VoteEntry entry = entries.get(i);
+            try {
+                Ballot ballot = GSON.fromJson(cryptoService.decryptVote(entry.getStegoImageData()), Ballot.class);
+                counts.electionName = ballot.electionName;
+                counts.add(ballot.candidateId, ballot.voteData, index, 1);
+            } catch (Exception e) {
+                counts.failures++;
+                counts.failed.put(entry.getBlockHeight() + ":" + entry.getEntryIndex(), 1);
+                System.err.println("Could not process vote from block " + entry.getBlockHeight() + ". Error: " + e.getMessage());
+            }
+        }
+        return counts;
+    }
+
+    private final class DecryptTask extends RecursiveTask<Counts> {
+        private final List<VoteEntry> entries;
+        private final CandidateIndex index;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private DecryptTask(List<VoteEntry> entries, CandidateIndex index, int from, int to, int threshold) {
+            this.entries = entries;
+            this.index = index;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from <= threshold) {
+                return decrypt(entries, index, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            DecryptTask left = new DecryptTask(entries, index, from, mid, threshold);
+            left.fork();
+            Counts right = new DecryptTask(entries, index, mid, to, threshold).compute();
+            return right.merge(left.join());
+        }
+    }
+
+    // Fields of the decrypted vote JSON used by the tally; votes cast before candidateId carry only the name
+    private static final class Ballot {
+        private String electionName;
+        private String voteData;
+        private Integer candidateId;
+    }
+
+    /**
+     * Dense ordinals of an election's candidates: ids in ascending order, the ordinal of a
+     * candidate being its position, so counting is an array increment.
+     */
+    private static final class CandidateIndex {
+        private static final CandidateIndex EMPTY = new CandidateIndex(Collections.emptyList());
+
+        private final int[] ids;
+        private final String[] names;
+        private final Map<String, Integer> ordinalsByName = new HashMap<>();
+
+        private CandidateIndex(List<Candidate> candidates) {
+            List<Candidate> sorted = new ArrayList<>(candidates);
+            sorted.sort(Comparator.comparingInt(Candidate::getCandidateId));
+            ids = new int[sorted.size()];
+            names = new String[sorted.size()];
+            for (int ordinal = 0; ordinal < ids.length; ordinal++) {
+                ids[ordinal] = sorted.get(ordinal).getCandidateId();
+                names[ordinal] = sorted.get(ordinal).getName();
+                ordinalsByName.putIfAbsent(names[ordinal], ordinal);
+            }
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        // -1 if the candidate is unknown, e.g. deleted since the vote was cast
+        int ordinal(Integer candidateId, String name) {
+            if (candidateId != null) {
+                int ordinal = Arrays.binarySearch(ids, candidateId);
+                return ordinal >= 0 ? ordinal : -1;
+            }
+            Integer ordinal = name != null ? ordinalsByName.get(name) : null;
+            return ordinal != null ? ordinal : -1;
+        }
+    }
+
+    /**
+     * Counts of one task: an int cell per candidate ordinal, plus counts by name for
+     * votes whose candidate is no longer in the index, and the votes that failed to
+     * decrypt with their attempts so far.
+     */
+    private static final class Counts {
+        private final int[] byCandidate;
+        private final Map<String, int[]> byName = new HashMap<>();
+        private final Map<String, Integer> failed = new HashMap<>();
+        private String electionName;
+        private int votes;
+        private int failures;
+
+        Counts(int candidates) {
+            byCandidate = new int[candidates];
+        }
+
+        /**
+         * @return the counts of a checkpoint, or null if it was written in an older format
+         *         (by name only, or by candidate id without names)
+         */
+        static Counts fromJson(String json, CandidateIndex index) {
+            Snapshot snapshot;
+            try {
+                snapshot = GSON.fromJson(json, Snapshot.class);
+            } catch (JsonParseException e) {
+                return null;
+            }
+            if (snapshot == null || snapshot.candidates == null) {
+                return null;
+            }
+            Counts counts = new Counts(index.size());
+            counts.electionName = snapshot.electionName;
+            // A candidate deleted since keeps its votes under the name it had when they were counted
+            snapshot.candidates.forEach((candidateId, count) -> counts.add(candidateId,
+                    count.name != null ? count.name : "Candidate #" + candidateId, index, count.count));
+            if (snapshot.names != null) {
+                snapshot.names.forEach((name, count) -> counts.add(null, name, index, count));
+            }
+            if (snapshot.failed != null) {
+                counts.failed.putAll(snapshot.failed);
+            }
+            return counts;
+        }
+
+        String toJson(CandidateIndex index) {
+            Snapshot snapshot = new Snapshot();
+            snapshot.electionName = electionName;
+            snapshot.candidates = new HashMap<>();
+            for (int ordinal = 0; ordinal < byCandidate.length; ordinal++) {
+                if (byCandidate[ordinal] > 0) {
+                    snapshot.candidates.put(index.ids[ordinal],
+                            new CandidateCount(index.names[ordinal], byCandidate[ordinal]));
+                }
+            }
+            snapshot.names = new HashMap<>();
+            byName.forEach((name, count) -> snapshot.names.put(name, count[0]));
+            snapshot.failed = failed;
+            return GSON.toJson(snapshot);
+        }
+
+        void add(Integer candidateId, String name, CandidateIndex index, int count) {
+            int ordinal = index.ordinal(candidateId, name);
+            if (ordinal >= 0) {
+                byCandidate[ordinal] += count;
+            } else {
+                byName.computeIfAbsent(String.valueOf(name), k -> new int[1])[0] += count;
+            }
+            votes += count;
+        }
+
+        Counts merge(Counts other) {
+            for (int ordinal = 0; ordinal < byCandidate.length; ordinal++) {
+                byCandidate[ordinal] += other.byCandidate[ordinal];
+            }
+            other.byName.forEach((name, count) -> byName.computeIfAbsent(name, k -> new int[1])[0] += count[0]);
+            failed.putAll(other.failed);
+            if (electionName == null) {
+                electionName = other.electionName;
+            }
+            votes += other.votes;
+            failures += other.failures;
+            return this;
+        }
+
+        // Candidate names are resolved here, so renamed candidates keep their votes
+        Map<String, Integer> toMap(CandidateIndex index) {
+            Map<String, Integer> results = new HashMap<>();
+            for (int ordinal = 0; ordinal < byCandidate.length; ordinal++) {
+                if (byCandidate[ordinal] > 0) {
+                    results.merge(index.names[ordinal], byCandidate[ordinal], Integer::sum);
+                }
+            }
+            byName.forEach((name, count) -> results.merge(name, count[0], Integer::sum));
+            return results;
+        }
+    }
+
+    // Checkpoint JSON: counts and names by candidate id, by name for votes of unknown candidates,
+    // and attempts by "blockHeight:entryIndex" for votes that failed to decrypt
+    private static final class Snapshot {
+        private String electionName;
+        private Map<Integer, CandidateCount> candidates;
+        private Map<String, Integer> names;
+        private Map<String, Integer> failed;
+    }
+
+    private static final class CandidateCount {
+        private String name;
+        private int count;
+
+        private CandidateCount(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+}
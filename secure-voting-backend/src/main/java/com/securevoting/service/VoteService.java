@@ -1,21 +1,22 @@
 package com.securevoting.service;
 
-import com.securevoting.model.Block;
+import com.securevoting.model.Candidate;
 import com.securevoting.model.Election;
 import com.securevoting.model.UserDetails;
-import com.securevoting.repository.BlockRepository;
+import com.securevoting.repository.CandidateRepository;
 import com.securevoting.repository.ElectionRepository;
 import com.securevoting.repository.UserDetailsRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
 public class VoteService {
 
     @Autowired
-    private BlockRepository blockRepository;
+    private BlockService blockService;
 
     @Autowired
     private UserDetailsRepository userDetailsRepository;
@@ -29,6 +30,15 @@ public class VoteService {
     @Autowired
     private SteganographyService steganographyService;
 
+    @Autowired
+    private BlockSequencer blockSequencer;
+
+    @Autowired
+    private CandidateRepository candidateRepository;
+
+    @Autowired
+    private HomomorphicTallyService homomorphicTallyService;
+
     public boolean castVote(String voterId, String voteData, int electionId) {
         Optional<UserDetails> userDetailsOpt = userDetailsRepository.findByVoterId(voterId);
         if (userDetailsOpt.isEmpty()) {
@@ -36,7 +46,7 @@ public class VoteService {
         }
         String userVoterId = userDetailsOpt.get().getVoterId();
 
-        if (blockRepository.existsByVoterIdAndElectionId(userVoterId, electionId)) {
+        if (blockService.hasVoted(userVoterId, electionId)) {
             return false;
         }
 
@@ -47,21 +57,22 @@ public class VoteService {
         String electionName = electionOpt.get().getName();
 
         try {
-            String voteJson = "{\"voterId\":\"" + userVoterId + "\", \"voteData\":\"" + voteData + "\", \"electionId\":" + electionId + ", \"electionName\":\"" + electionName + "\"}";
-            String encryptedPayloadJson = cryptoService.encryptVote(voteJson);
-            byte[] stegoImageData = steganographyService.embedData(encryptedPayloadJson.getBytes());
-
-            String previousHash = blockRepository.findTopByOrderByBlockHeightDesc().map(Block::getHash).orElse("0");
-            int newBlockHeight = blockRepository.findTopByOrderByBlockHeightDesc().map(b -> b.getBlockHeight() + 1).orElse(0);
-
-            Block newBlock = new Block("Encrypted vote saved in stego_image_data.", previousHash, userVoterId, newBlockHeight, electionId, electionName);
-            newBlock.mineBlock(4);
-            newBlock.setStegoImageData(stegoImageData);
-            blockRepository.save(newBlock);
-
-            UserDetails userDetails = userDetailsOpt.get();
-            userDetails.setNoElectionsVoted(userDetails.getNoElectionsVoted() + 1);
-            userDetailsRepository.save(userDetails);
+            // Ballots carry the candidate id so tallies survive candidate renames; the same
+            // candidate list is reused for the homomorphic ballot
+            List<Candidate> candidates = candidateRepository.findByElectionId(electionId);
+            Integer candidateId = candidates.stream()
+                    .filter(candidate -> candidate.getName().equals(voteData))
+                    .map(Candidate::getCandidateId)
+                    .findFirst()
+                    .orElse(null);
+            String candidateField = candidateId != null ? "\"candidateId\":" + candidateId + ", " : "";
+            String voteJson = "{\"voterId\":\"" + userVoterId + "\", \"voteData\":\"" + voteData + "\", " + candidateField + "\"electionId\":" + electionId + ", \"electionName\":\"" + electionName + "\"}";
+            byte[] encryptedPayload = cryptoService.encryptVoteForEmbedding(voteJson);
+            byte[] stegoImageData = steganographyService.embedData(encryptedPayload);
+
+            byte[] homomorphicBallot = homomorphicTallyService.encryptBallot(candidates, candidateId);
+
+            blockSequencer.append(userVoterId, electionId, electionName, stegoImageData, homomorphicBallot);
 
             return true;
         } catch (Exception e) {
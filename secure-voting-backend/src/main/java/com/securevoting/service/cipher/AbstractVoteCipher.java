@@ -0,0 +1,82 @@
+package com.securevoting.service.cipher;
+
+import com.securevoting.dto.VotePayload;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and times every encrypt and decrypt of a {@link VoteCipher}.
+ */
+abstract class AbstractVoteCipher implements VoteCipher {
+
+    private final String algorithmId;
+
+    private final LongAdder encryptions = new LongAdder();
+    private final LongAdder encryptFailures = new LongAdder();
+    private final LongAdder encryptNanos = new LongAdder();
+    private final LongAdder decryptions = new LongAdder();
+    private final LongAdder decryptFailures = new LongAdder();
+    private final LongAdder decryptNanos = new LongAdder();
+
+    AbstractVoteCipher(String algorithmId) {
+        this.algorithmId = algorithmId;
+    }
+
+    @Override
+    public String getAlgorithmId() {
+        return algorithmId;
+    }
+
+    @Override
+    public final VotePayload encrypt(String voteJson) throws Exception {
+        long start = System.nanoTime();
+        try {
+            VotePayload payload = doEncrypt(voteJson);
+            encryptions.increment();
+            encryptNanos.add(System.nanoTime() - start);
+            return payload;
+        } catch (Exception e) {
+            encryptFailures.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public final String decrypt(VotePayload payload) throws Exception {
+        long start = System.nanoTime();
+        try {
+            String voteJson = doDecrypt(payload);
+            decryptions.increment();
+            decryptNanos.add(System.nanoTime() - start);
+            return voteJson;
+        } catch (Exception e) {
+            decryptFailures.increment();
+            throw e;
+        }
+    }
+
+    protected abstract VotePayload doEncrypt(String voteJson) throws Exception;
+
+    protected abstract String doDecrypt(VotePayload payload) throws Exception;
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long encrypted = encryptions.sum();
+        long decrypted = decryptions.sum();
+        stats.put("encryptions", encrypted);
+        stats.put("encryptFailures", encryptFailures.sum());
+        stats.put("averageEncryptMs", averageMillis(encryptNanos.sum(), encrypted));
+        stats.put("decryptions", decrypted);
+        stats.put("decryptFailures", decryptFailures.sum());
+        stats.put("averageDecryptMs", averageMillis(decryptNanos.sum(), decrypted));
+        return stats;
+    }
+
+    private static double averageMillis(long nanos, long count) {
+        return count == 0 ? 0.0 : (double) nanos / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,125 @@
+package com.securevoting.service.cipher;
+
+import com.google.gson.Gson;
+import com.securevoting.dto.VotePayload;
+import com.securevoting.service.LiboqsCryptoService;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+
+/**
+ * Post-quantum Kyber KEM at one parameter set, via {@link LiboqsCryptoService}. The
+ * algorithm id is "liboqs-" followed by the parameter set, e.g. "liboqs-Kyber768".
+ */
+final class KyberVoteCipher extends AbstractVoteCipher {
+
+    static final String ALGORITHM_PREFIX = "liboqs-";
+
+    private static final Gson GSON = new Gson();
+
+    private final String parameterSet;
+    private final LiboqsCryptoService liboqsCryptoService;
+    private final VoteCipherSupport support;
+
+    KyberVoteCipher(String parameterSet, LiboqsCryptoService liboqsCryptoService, VoteCipherSupport support) {
+        super(ALGORITHM_PREFIX + parameterSet);
+        this.parameterSet = parameterSet;
+        this.liboqsCryptoService = liboqsCryptoService;
+        this.support = support;
+    }
+
+    String getParameterSet() {
+        return parameterSet;
+    }
+
+    @Override
+    protected VotePayload doEncrypt(String voteJson) throws Exception {
+        System.out.println("Encrypting vote using Post-Quantum Kyber KEM (BouncyCastle)");
+        requireInitialized();
+        System.out.println("Using algorithm: " + parameterSet);
+
+        // Step 1: Generate shared secret using liboqs KEM
+        LiboqsCryptoService.LiboqsResult liboqsResult = liboqsCryptoService.encapsulate(parameterSet);
+        byte[] sharedSecret = liboqsResult.getSharedSecret();
+        String algorithm = getAlgorithmId();
+
+        // Step 2: Derive AES key and encrypt
+        SecretKey aesKey = support.deriveAesKey(sharedSecret);
+        byte[] iv = support.newIv();
+        byte[] cipherText = support.encrypt(aesKey, iv, voteJson);
+        String ivB64 = Base64.getEncoder().encodeToString(iv);
+        String cipherTextB64 = Base64.getEncoder().encodeToString(cipherText);
+
+        // Step 3: Calculate HMAC
+        String publicKeyB64 = Base64.getEncoder().encodeToString(liboqsResult.getPublicKey());
+        String hmac = support.calculateHmac(algorithm, publicKeyB64, ivB64, cipherTextB64, sharedSecret);
+
+        // Step 4: Create VotePayload with liboqs metadata
+        LiboqsMetadata liboqsMetadata = new LiboqsMetadata();
+        liboqsMetadata.secretKey = Base64.getEncoder().encodeToString(liboqsResult.getSecretKey());
+        liboqsMetadata.ciphertext = Base64.getEncoder().encodeToString(liboqsResult.getCiphertext());
+        liboqsMetadata.publicKey = publicKeyB64;
+        liboqsMetadata.algorithm = liboqsResult.getAlgorithm();
+
+        VotePayload payload = new VotePayload();
+        payload.setAlgorithm(algorithm);
+        payload.setEphemeralPublicKey(publicKeyB64);
+        payload.setQkdMetadata(GSON.toJson(liboqsMetadata));
+        payload.setIv(ivB64);
+        payload.setCipherText(cipherTextB64);
+        payload.setHmac(hmac);
+
+        System.out.println("Post-Quantum Kyber KEM encryption completed");
+
+        return payload;
+    }
+
+    @Override
+    protected String doDecrypt(VotePayload payload) throws Exception {
+        System.out.println("Decrypting vote using Liboqs Post-Quantum Kyber KEM (BouncyCastle)");
+        requireInitialized();
+        System.out.println("Using algorithm: " + parameterSet);
+
+        // Step 1: Extract liboqs metadata
+        LiboqsMetadata metadata = GSON.fromJson(payload.getQkdMetadata(), LiboqsMetadata.class);
+
+        // Step 2: Reconstruct shared secret; the encoded private key carries its parameter set
+        byte[] secretKey = Base64.getDecoder().decode(metadata.secretKey);
+        byte[] ciphertext = Base64.getDecoder().decode(metadata.ciphertext);
+        byte[] sharedSecret = liboqsCryptoService.decapsulate(secretKey, ciphertext);
+
+        // Step 3: Verify HMAC
+        if (support.isIntegrityEnabled() && payload.getHmac() != null) {
+            String calculatedHmac = support.calculateHmac(payload.getAlgorithm(), payload.getEphemeralPublicKey(),
+                    payload.getIv(), payload.getCipherText(), sharedSecret);
+            if (!VoteCipherSupport.constantTimeEquals(calculatedHmac, payload.getHmac())) {
+                System.err.println("HMAC verification failed - vote may have been tampered");
+                throw new SecurityException("Integrity check failed: HMAC mismatch");
+            }
+            System.out.println("HMAC verification passed");
+        }
+
+        // Step 4: Derive AES key and decrypt
+        String voteJson = support.decrypt(support.deriveAesKey(sharedSecret), payload);
+        System.out.println("Liboqs: Post-Quantum Kyber KEM decryption completed successfully");
+
+        return voteJson;
+    }
+
+    private void requireInitialized() {
+        if (liboqsCryptoService == null || !liboqsCryptoService.isInitialized()) {
+            throw new UnsupportedOperationException(
+                    "LiboqsCryptoService not available or not initialized. Check startup logs for errors.");
+        }
+    }
+
+    /**
+     * Metadata for liboqs KEM operations, stored as JSON in the payload's qkdMetadata field.
+     */
+    private static class LiboqsMetadata {
+        private String secretKey;      // Base64 encoded secret key
+        private String ciphertext;     // Base64 encoded KEM ciphertext
+        private String publicKey;      // Base64 encoded public key
+        private String algorithm;      // KEM algorithm name (e.g., "Kyber768")
+    }
+}
@@ -0,0 +1,91 @@
+package com.securevoting.service.cipher;
+
+import com.securevoting.dto.VotePayload;
+import com.securevoting.service.QKDService;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+
+/**
+ * Shared secret from the simulated BB84 exchange of {@link QKDService}; the exchange
+ * metadata travels in the payload so the secret can be reconstructed on decryption.
+ */
+final class QkdVoteCipher extends AbstractVoteCipher {
+
+    static final String ALGORITHM_ID = "QKD-BB84";
+
+    private final QKDService qkdService;
+    private final VoteCipherSupport support;
+
+    QkdVoteCipher(QKDService qkdService, VoteCipherSupport support) {
+        super(ALGORITHM_ID);
+        this.qkdService = qkdService;
+        this.support = support;
+    }
+
+    @Override
+    protected VotePayload doEncrypt(String voteJson) throws Exception {
+        System.out.println("Encrypting vote using QKD-BB84 protocol");
+
+        // Step 1: Generate shared secret using BB84 QKD protocol
+        QKDService.QKDResult qkdResult = qkdService.generateSharedSecret();
+        byte[] sharedSecret = qkdResult.getSharedSecret();
+
+        // Step 2: Derive AES key and encrypt
+        SecretKey aesKey = support.deriveAesKey(sharedSecret);
+        byte[] iv = support.newIv();
+        byte[] cipherText = support.encrypt(aesKey, iv, voteJson);
+        String ivB64 = Base64.getEncoder().encodeToString(iv);
+        String cipherTextB64 = Base64.getEncoder().encodeToString(cipherText);
+
+        // Step 3: Calculate HMAC
+        String hmac = support.calculateHmac(ALGORITHM_ID, null, ivB64, cipherTextB64, sharedSecret);
+
+        // Step 4: Create VotePayload
+        VotePayload payload = new VotePayload(ALGORITHM_ID, qkdResult.getMetadata().serialize(),
+                ivB64, cipherTextB64, hmac, true);
+
+        System.out.println("QKD-BB84 encryption completed");
+
+        return payload;
+    }
+
+    @Override
+    protected String doDecrypt(VotePayload payload) throws Exception {
+        System.out.println("Decrypting vote using QKD-BB84 protocol");
+
+        // Step 1: Extract QKD metadata
+        QKDService.QKDMetadata metadata = QKDService.QKDMetadata.parse(payload.getQkdMetadata());
+
+        // Step 2: Reconstruct shared secret using BB84 QKD protocol
+        byte[] sharedSecret;
+        try {
+            sharedSecret = qkdService.reconstructSharedSecret(metadata);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Failed to reconstruct QKD shared secret: " + e.getMessage());
+            throw new SecurityException("Cannot decrypt vote: " + e.getMessage() +
+                    ". This vote was encrypted before the QKD fix and cannot be decrypted. " +
+                    "See QKD_HMAC_MISMATCH_FIX.md for details.", e);
+        }
+
+        // Step 3: Verify HMAC
+        if (support.isIntegrityEnabled() && payload.getHmac() != null) {
+            String calculatedHmac = support.calculateHmac(ALGORITHM_ID, null,
+                    payload.getIv(), payload.getCipherText(), sharedSecret);
+            if (!VoteCipherSupport.constantTimeEquals(calculatedHmac, payload.getHmac())) {
+                System.err.println("HMAC verification failed for QKD vote");
+                System.err.println("Expected HMAC: " + payload.getHmac());
+                System.err.println("Calculated HMAC: " + calculatedHmac);
+                throw new SecurityException("Integrity check failed: HMAC mismatch. " +
+                        "Vote may have been tampered with or key reconstruction failed.");
+            }
+            System.out.println("HMAC verification passed");
+        }
+
+        // Step 4: Derive AES key and decrypt
+        String voteJson = support.decrypt(support.deriveAesKey(sharedSecret), payload);
+        System.out.println("QKD-BB84 decryption completed successfully");
+
+        return voteJson;
+    }
+}
@@ -0,0 +1,24 @@
+package com.securevoting.service.cipher;
+
+import com.securevoting.dto.VotePayload;
+
+import java.util.Map;
+
+/**
+ * A vote encryption scheme: key establishment plus AES-GCM, identified by the
+ * algorithm id it writes to {@link VotePayload#getAlgorithm()} ("ECDH", "QKD-BB84",
+ * "liboqs-Kyber768", ...). Implementations are registered in {@link VoteCipherRegistry}.
+ */
+public interface VoteCipher {
+
+    String getAlgorithmId();
+
+    VotePayload encrypt(String voteJson) throws Exception;
+
+    String decrypt(VotePayload payload) throws Exception;
+
+    /**
+     * @return operation counts, failures and timings since startup
+     */
+    Map<String, Object> getStats();
+}
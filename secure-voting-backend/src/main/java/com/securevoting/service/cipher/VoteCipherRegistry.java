@@ -0,0 +1,213 @@
+package com.securevoting.service.cipher;
+
+import com.securevoting.dto.VotePayload;
+import com.securevoting.service.CryptoService;
+import com.securevoting.service.LiboqsCryptoService;
+import com.securevoting.service.QKDService;
+import com.securevoting.service.SymmetricProviderPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The vote ciphers by algorithm id. New votes go to the primary cipher chosen by the
+ * quantum.crypto.* flags, except for a configurable percentage routed to other ciphers
+ * (crypto.cipher.ab.routes) to compare their cost on live traffic. Decryption picks the
+ * cipher named in the payload, so routed votes decrypt like any other.
+ */
+@Service
+public class VoteCipherRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(VoteCipherRegistry.class);
+
+    private static final String[] KYBER_PARAMETER_SETS = {"Kyber512", "Kyber768", "Kyber1024"};
+
+    @Value("${quantum.crypto.enabled:false}")
+    private boolean quantumCryptoEnabled;
+
+    @Value("${quantum.crypto.mode:bb84}")
+    private String quantumCryptoMode; // "bb84" or "liboqs"
+
+    @Value("${crypto.integrity.enabled:true}")
+    private boolean integrityEnabled;
+
+    // Comma-separated algorithmId:percent, e.g. "Kyber512:10,liboqs-Kyber1024:5"
+    @Value("${crypto.cipher.ab.routes:}")
+    private String abRoutes;
+
+    @Autowired
+    private CryptoService cryptoService;
+
+    @Autowired
+    private QKDService qkdService;
+
+    @Autowired
+    private LiboqsCryptoService liboqsCryptoService;
+
+    @Autowired
+    private SymmetricProviderPolicy symmetricProviderPolicy;
+
+    private final Map<String, VoteCipher> ciphers = new LinkedHashMap<>();
+    private final List<Route> routes = new ArrayList<>();
+    private VoteCipher ecdhCipher;
+    private VoteCipher primary;
+
+    @PostConstruct
+    public void init() {
+        VoteCipherSupport support = new VoteCipherSupport(integrityEnabled, symmetricProviderPolicy);
+        ecdhCipher = register(new EcdhVoteCipher(cryptoService, support));
+        register(new QkdVoteCipher(qkdService, support));
+        for (String parameterSet : KYBER_PARAMETER_SETS) {
+            register(new KyberVoteCipher(parameterSet, liboqsCryptoService, support));
+        }
+
+        boolean liboqsReady = liboqsCryptoService != null && liboqsCryptoService.isInitialized();
+        if (quantumCryptoEnabled && "liboqs".equals(quantumCryptoMode) && liboqsReady) {
+            primary = ciphers.get(KyberVoteCipher.ALGORITHM_PREFIX + liboqsCryptoService.getCurrentAlgorithm());
+        } else if (quantumCryptoEnabled) {
+            primary = ciphers.get(QkdVoteCipher.ALGORITHM_ID);
+        }
+        if (primary == null) {
+            primary = ecdhCipher;
+        }
+
+        parseRoutes(liboqsReady);
+        logger.info("Vote ciphers: {}, primary: {}, A/B routes: {}",
+                ciphers.keySet(), primary.getAlgorithmId(), routeShares());
+    }
+
+    private VoteCipher register(AbstractVoteCipher cipher) {
+        ciphers.put(cipher.getAlgorithmId(), cipher);
+        return cipher;
+    }
+
+    private void parseRoutes(boolean liboqsReady) {
+        if (abRoutes == null || abRoutes.trim().isEmpty()) {
+            return;
+        }
+        int total = 0;
+        for (String entry : abRoutes.split(",")) {
+            String[] parts = entry.trim().split(":");
+            VoteCipher cipher = parts.length == 2 ? resolve(parts[0].trim()) : null;
+            int percent;
+            try {
+                percent = parts.length == 2 ? Integer.parseInt(parts[1].trim()) : -1;
+            } catch (NumberFormatException e) {
+                percent = -1;
+            }
+            if (cipher == null || percent <= 0) {
+                logger.warn("Ignoring A/B route '{}': expected <algorithmId>:<percent>", entry.trim());
+                continue;
+            }
+            if (cipher instanceof KyberVoteCipher) {
+                if (!liboqsReady) {
+                    logger.warn("Ignoring A/B route '{}': LiboqsCryptoService not initialized", entry.trim());
+                    continue;
+                }
+                // Fill the parameter set's key pair pool before votes are routed to it
+                liboqsCryptoService.prepareParameterSet(((KyberVoteCipher) cipher).getParameterSet());
+            }
+            if (total + percent > 100) {
+                logger.warn("Ignoring A/B route '{}': routes exceed 100%", entry.trim());
+                continue;
+            }
+            total += percent;
+            routes.add(new Route(cipher, total));
+        }
+    }
+
+    private VoteCipher resolve(String algorithmId) {
+        VoteCipher cipher = ciphers.get(algorithmId);
+        return cipher != null ? cipher : ciphers.get(KyberVoteCipher.ALGORITHM_PREFIX + algorithmId);
+    }
+
+    /**
+     * @return the cipher for a new vote: an A/B route for the configured share of
+     *         votes, otherwise the primary cipher
+     */
+    public VoteCipher select() {
+        if (!routes.isEmpty()) {
+            int roll = ThreadLocalRandom.current().nextInt(100);
+            for (Route route : routes) {
+                if (roll < route.cumulativePercent) {
+                    return route.cipher;
+                }
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * @return the cipher that decrypts the payload; payloads without an algorithm
+     *         predate the field and are ECDH
+     */
+    public VoteCipher forPayload(VotePayload payload) {
+        String algorithm = payload.getAlgorithm();
+        if (algorithm == null || algorithm.isEmpty()) {
+            // Backward compatibility: default to ECDH
+            System.out.println("No algorithm specified, defaulting to ECDH");
+            return ecdhCipher;
+        }
+        System.out.println("Detected algorithm: " + algorithm);
+
+        VoteCipher cipher = ciphers.get(algorithm);
+        if (cipher != null) {
+            return cipher;
+        }
+        if (algorithm.startsWith(KyberVoteCipher.ALGORITHM_PREFIX)) {
+            // Any Kyber cipher decapsulates: the encoded private key names its parameter set
+            return ciphers.get(KyberVoteCipher.ALGORITHM_PREFIX + KYBER_PARAMETER_SETS[1]);
+        }
+        return ecdhCipher;
+    }
+
+    public VoteCipher getEcdhCipher() {
+        return ecdhCipher;
+    }
+
+    public VoteCipher getPrimary() {
+        return primary;
+    }
+
+    /**
+     * @return primary cipher, A/B routes and the counters of every cipher
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("primary", primary.getAlgorithmId());
+        stats.put("routes", routeShares());
+        Map<String, Object> perCipher = new LinkedHashMap<>();
+        ciphers.forEach((id, cipher) -> perCipher.put(id, cipher.getStats()));
+        stats.put("ciphers", perCipher);
+        return stats;
+    }
+
+    private Map<String, Integer> routeShares() {
+        Map<String, Integer> shares = new LinkedHashMap<>();
+        int previous = 0;
+        for (Route route : routes) {
+            shares.put(route.cipher.getAlgorithmId(), route.cumulativePercent - previous);
+            previous = route.cumulativePercent;
+        }
+        return shares;
+    }
+
+    private static final class Route {
+        private final VoteCipher cipher;
+        private final int cumulativePercent;
+
+        private Route(VoteCipher cipher, int cumulativePercent) {
+            this.cipher = cipher;
+            this.cumulativePercent = cumulativePercent;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.securevoting.service.cipher;
+
+import com.securevoting.dto.VotePayload;
+import com.securevoting.service.CryptoPrimitives;
+import com.securevoting.service.SymmetricProviderPolicy;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * AES key derivation, AES-GCM and the payload HMAC shared by the vote ciphers.
+ */
+final class VoteCipherSupport {
+
+    private static final String SYMMETRIC_ALGORITHM = "AES";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int GCM_IV_LENGTH_BYTES = 12;
+    private static final int GCM_TAG_LENGTH_BITS = 128;
+    private static final int KEY_SIZE_BYTES = 32;
+    private static final String INTEGRITY_SALT = "INTEGRITY_SALT";
+    private static final String PROVIDER = BouncyCastleProvider.PROVIDER_NAME;
+
+    private final boolean integrityEnabled;
+    private final SymmetricProviderPolicy symmetricProviderPolicy;
+
+    VoteCipherSupport(boolean integrityEnabled, SymmetricProviderPolicy symmetricProviderPolicy) {
+        this.integrityEnabled = integrityEnabled;
+        this.symmetricProviderPolicy = symmetricProviderPolicy;
+    }
+
+    boolean isIntegrityEnabled() {
+        return integrityEnabled;
+    }
+
+    SecretKey deriveAesKey(byte[] sharedSecret) throws GeneralSecurityException {
+        MessageDigest hash = CryptoPrimitives.messageDigest(HASH_ALGORITHM, PROVIDER);
+        byte[] derivedKey = hash.digest(sharedSecret);
+        return new SecretKeySpec(derivedKey, 0, KEY_SIZE_BYTES, SYMMETRIC_ALGORITHM);
+    }
+
+    byte[] newIv() {
+        byte[] iv = new byte[GCM_IV_LENGTH_BYTES];
+        CryptoPrimitives.secureRandom().nextBytes(iv);
+        return iv;
+    }
+
+    byte[] encrypt(SecretKey aesKey, byte[] iv, String voteJson) throws GeneralSecurityException {
+        Cipher aesCipher = symmetricProviderPolicy.aesGcmCipher();
+        aesCipher.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv));
+        return aesCipher.doFinal(voteJson.getBytes(StandardCharsets.UTF_8));
+    }
+
+    String decrypt(SecretKey aesKey, VotePayload payload) throws GeneralSecurityException {
+        byte[] iv = Base64.getDecoder().decode(payload.getIv());
+        byte[] cipherText = Base64.getDecoder().decode(payload.getCipherText());
+
+        Cipher aesCipher = symmetricProviderPolicy.aesGcmCipher();
+        aesCipher.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv));
+        return new String(aesCipher.doFinal(cipherText), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * HMAC-SHA256 over algorithm, public key, IV and ciphertext, keyed from the shared
+     * secret (or a fixed key for ECDH, whose secret is not available here).
+     *
+     * @return Base64 HMAC, or null if integrity protection is disabled
+     */
+    String calculateHmac(String algorithm, String publicKey, String iv,
+                         String cipherText, byte[] sharedSecret) throws GeneralSecurityException {
+        if (!integrityEnabled) {
+            return null;
+        }
+
+        // Derive integrity key
+        byte[] integrityKey;
+        if (sharedSecret != null) {
+            MessageDigest hash = CryptoPrimitives.messageDigest(HASH_ALGORITHM, PROVIDER);
+            byte[] saltBytes = INTEGRITY_SALT.getBytes(StandardCharsets.UTF_8);
+            byte[] combined = new byte[sharedSecret.length + saltBytes.length];
+            System.arraycopy(sharedSecret, 0, combined, 0, sharedSecret.length);
+            System.arraycopy(saltBytes, 0, combined, sharedSecret.length, saltBytes.length);
+            integrityKey = hash.digest(combined);
+        } else {
+            // For ECDH, use a simplified approach (in practice, need shared secret)
+            integrityKey = HASH_ALGORITHM.getBytes(StandardCharsets.UTF_8);
+        }
+
+        Mac mac = CryptoPrimitives.mac(HMAC_ALGORITHM);
+        mac.init(new SecretKeySpec(integrityKey, HMAC_ALGORITHM));
+
+        String dataToSign = algorithm + (publicKey != null ? publicKey : "") + iv + cipherText;
+        byte[] hmacBytes = mac.doFinal(dataToSign.getBytes(StandardCharsets.UTF_8));
+
+        return Base64.getEncoder().encodeToString(hmacBytes);
+    }
+
+    static boolean constantTimeEquals(String a, String b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a.length() != b.length()) {
+            return false;
+        }
+        int result = 0;
+        for (int i = 0; i < a.length(); i++) {
+            result |= a.charAt(i) ^ b.charAt(i);
+        }
+        return result == 0;
+    }
+}
@@ -0,0 +1,90 @@
+package com.securevoting.benchmark;
+
+import com.securevoting.service.CryptoPrimitives;
+import com.securevoting.service.SymmetricProviderPolicy;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AES-256-GCM encrypt and decrypt per JCA provider, at a vote-sized payload and at the
+ * size of a Kyber768 vote payload. The provider {@link SymmetricProviderPolicy} picks at
+ * startup is printed once during setup.
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="AesGcmProviderBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AesGcmProviderBenchmark {
+
+    @Param({"SunJCE", "BC"})
+    private String provider;
+
+    @Param({"128", "8192"})
+    private int payloadBytes;
+
+    private SecretKeySpec key;
+    private byte[] iv;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+    private GCMParameterSpec decryptSpec;
+
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        Security.addProvider(new BouncyCastleProvider());
+        byte[] keyBytes = new byte[32];
+        CryptoPrimitives.secureRandom().nextBytes(keyBytes);
+        key = new SecretKeySpec(keyBytes, "AES");
+        iv = new byte[12];
+        CryptoPrimitives.secureRandom().nextBytes(iv);
+        plaintext = new byte[payloadBytes];
+        CryptoPrimitives.secureRandom().nextBytes(plaintext);
+
+        decryptSpec = new GCMParameterSpec(128, iv.clone());
+        Cipher cipher = Cipher.getInstance(SymmetricProviderPolicy.AES_GCM, provider);
+        cipher.init(Cipher.ENCRYPT_MODE, key, decryptSpec);
+        ciphertext = cipher.doFinal(plaintext);
+
+        System.out.printf("%n[%s, %d bytes] policy selects: %s%n", provider, payloadBytes,
+                BenchmarkServices.symmetricProviderPolicy("auto").getAesGcmProvider());
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws GeneralSecurityException {
+        // Providers refuse to encrypt twice under one key and IV
+        for (int i = 0; i < iv.length && ++iv[i] == 0; i++) {
+            // carry
+        }
+        Cipher cipher = CryptoPrimitives.cipher(SymmetricProviderPolicy.AES_GCM, provider);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+        return cipher.doFinal(plaintext);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws GeneralSecurityException {
+        Cipher cipher = CryptoPrimitives.cipher(SymmetricProviderPolicy.AES_GCM, provider);
+        cipher.init(Cipher.DECRYPT_MODE, key, decryptSpec);
+        return cipher.doFinal(ciphertext);
+    }
+}
@@ -0,0 +1,129 @@
+package com.securevoting.benchmark;
+
+import com.securevoting.service.CryptoService;
+import com.securevoting.service.LiboqsCryptoService;
+import com.securevoting.service.PostQuantumSignatureService;
+import com.securevoting.service.QKDService;
+import com.securevoting.service.SteganographyService;
+import com.securevoting.service.SymmetricProviderPolicy;
+import com.securevoting.service.UnifiedCryptoService;
+import com.securevoting.service.cipher.VoteCipherRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Wires the crypto and steganography services by hand for JMH benchmarks, with the
+ * same defaults as application.properties, so benchmarks run without a Spring
+ * context or database. Run benchmarks from secure-voting-backend: cover.png and the
+ * authority key files are read from the working directory.
+ */
+final class BenchmarkServices {
+
+    private BenchmarkServices() {
+    }
+
+    static SteganographyService steganography() {
+        return steganography("cover.png");
+    }
+
+    static SteganographyService steganography(String coverPaths) {
+        SteganographyService service = new SteganographyService();
+        ReflectionTestUtils.setField(service, "coverPaths", coverPaths);
+        ReflectionTestUtils.setField(service, "pngCompressionLevel", 6);
+        ReflectionTestUtils.setField(service, "pngFilter", "adaptive");
+        ReflectionTestUtils.setField(service, "pngSegmentRows", 64);
+        service.init();
+        return service;
+    }
+
+    static SymmetricProviderPolicy symmetricProviderPolicy(String provider) {
+        SymmetricProviderPolicy policy = new SymmetricProviderPolicy();
+        ReflectionTestUtils.setField(policy, "configuredProvider", provider);
+        policy.init();
+        return policy;
+    }
+
+    static CryptoService crypto(SteganographyService steganography, SymmetricProviderPolicy policy) throws Exception {
+        CryptoService service = new CryptoService();
+        ReflectionTestUtils.setField(service, "steganographyService", steganography);
+        ReflectionTestUtils.setField(service, "symmetricProviderPolicy", policy);
+        ReflectionTestUtils.setField(service, "ephemeralKeyPoolEnabled", true);
+        ReflectionTestUtils.setField(service, "ephemeralKeyPoolLowWatermark", 16);
+        ReflectionTestUtils.setField(service, "ephemeralKeyPoolHighWatermark", 64);
+        service.init();
+        return service;
+    }
+
+    static QKDService qkd() {
+        QKDService service = new QKDService();
+        ReflectionTestUtils.setField(service, "simulator", "qiskit");
+        ReflectionTestUtils.setField(service, "numberOfQubits", 256);
+        ReflectionTestUtils.setField(service, "errorThreshold", 0.11);
+        service.init();
+        return service;
+    }
+
+    static LiboqsCryptoService kyber(String algorithm) {
+        return kyber(algorithm, true);
+    }
+
+    static LiboqsCryptoService kyber(String algorithm, boolean keyPool) {
+        LiboqsCryptoService service = new LiboqsCryptoService();
+        ReflectionTestUtils.setField(service, "kemAlgorithm", algorithm);
+        ReflectionTestUtils.setField(service, "keyPoolEnabled", keyPool);
+        ReflectionTestUtils.setField(service, "keyPoolLowWatermark", 8);
+        ReflectionTestUtils.setField(service, "keyPoolHighWatermark", 32);
+        service.init();
+        return service;
+    }
+
+    static PostQuantumSignatureService dilithium(String algorithm) {
+        PostQuantumSignatureService service = new PostQuantumSignatureService();
+        ReflectionTestUtils.setField(service, "signatureAlgorithm", algorithm);
+        ReflectionTestUtils.setField(service, "signatureEnabled", true);
+        service.init();
+        return service;
+    }
+
+    /**
+     * @param algorithm "ECDH", "QKD-BB84" or a Kyber parameter set such as "Kyber768"
+     * @param abRoutes  crypto.cipher.ab.routes, e.g. "Kyber512:50", or empty
+     */
+    static VoteCipherRegistry voteCipherRegistry(String algorithm, String abRoutes,
+                                                 SteganographyService steganography,
+                                                 SymmetricProviderPolicy policy) throws Exception {
+        boolean kyber = algorithm.startsWith("Kyber");
+
+        VoteCipherRegistry registry = new VoteCipherRegistry();
+        ReflectionTestUtils.setField(registry, "quantumCryptoEnabled", !"ECDH".equals(algorithm));
+        ReflectionTestUtils.setField(registry, "quantumCryptoMode", kyber ? "liboqs" : "bb84");
+        ReflectionTestUtils.setField(registry, "integrityEnabled", true);
+        ReflectionTestUtils.setField(registry, "abRoutes", abRoutes);
+        ReflectionTestUtils.setField(registry, "cryptoService", crypto(steganography, policy));
+        ReflectionTestUtils.setField(registry, "qkdService", qkd());
+        ReflectionTestUtils.setField(registry, "liboqsCryptoService", kyber(kyber ? algorithm : "Kyber768"));
+        ReflectionTestUtils.setField(registry, "symmetricProviderPolicy", policy);
+        registry.init();
+        return registry;
+    }
+
+    /**
+     * @param algorithm "ECDH", "QKD-BB84" or a Kyber parameter set such as "Kyber768"
+     */
+    static UnifiedCryptoService unifiedCrypto(String algorithm, String payloadFormat) throws Exception {
+        return unifiedCrypto(algorithm, payloadFormat, "");
+    }
+
+    static UnifiedCryptoService unifiedCrypto(String algorithm, String payloadFormat, String abRoutes) throws Exception {
+        SteganographyService steganography = steganography();
+        SymmetricProviderPolicy policy = symmetricProviderPolicy("auto");
+
+        UnifiedCryptoService service = new UnifiedCryptoService();
+        ReflectionTestUtils.setField(service, "quantumFallbackEnabled", false);
+        ReflectionTestUtils.setField(service, "payloadFormat", payloadFormat);
+        ReflectionTestUtils.setField(service, "voteCipherRegistry",
+                voteCipherRegistry(algorithm, abRoutes, steganography, policy));
+        ReflectionTestUtils.setField(service, "steganographyService", steganography);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,49 @@
+package com.securevoting.benchmark;
+
+import com.securevoting.model.Block;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block.calculateHash, which validation runs once per block, over block data the size of
+ * a single vote and of a larger multi-vote block.
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="BlockHashBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockHashBenchmark {
+
+    @Param({"128", "4096"})
+    private int dataLength;
+
+    private Block block;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        block = BlockMiningBenchmark.newBlock(dataLength, new Random(42));
+        block.setNonce(123456);
+    }
+
+    @Benchmark
+    public String calculateHash() {
+        return block.calculateHash();
+    }
+}
@@ -0,0 +1,63 @@
+package com.securevoting.benchmark;
+
+import com.securevoting.model.Block;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded Block.mineBlock per difficulty (leading hex zeros). Every invocation
+ * mines a new header, so the score averages over the geometric spread of nonce counts;
+ * the iterations are long enough to collect several difficulty-5 blocks.
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="BlockMiningBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class BlockMiningBenchmark {
+
+    @Param({"1", "2", "3", "4", "5"})
+    private int difficulty;
+
+    private Block block;
+    private long timestamp;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        block = newBlock(128, new Random(42));
+        timestamp = block.getTimestamp();
+    }
+
+    @Benchmark
+    public String mineBlock() {
+        block.setTimestamp(++timestamp);
+        block.setNonce(0);
+        block.mineBlock(difficulty);
+        return block.getHash();
+    }
+
+    static Block newBlock(int dataLength, Random random) {
+        char[] data = new char[dataLength];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (char) ('A' + random.nextInt(26));
+        }
+        String previousHash = Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+        return new Block(new String(data), previousHash, "VOTER-0001", 1, 1, "General Election");
+    }
+}
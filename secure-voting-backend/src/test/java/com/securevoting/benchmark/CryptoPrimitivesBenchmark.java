@@ -0,0 +1,124 @@
+package com.securevoting.benchmark;
+
+import com.securevoting.service.CryptoPrimitives;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyAgreement;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operation JCA lookups (getInstance and new SecureRandom, as the crypto services
+ * did) against {@link CryptoPrimitives}, for the primitives on the vote path. Runs with
+ * 4 threads to include provider contention; override with -t.
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="CryptoPrimitivesBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class CryptoPrimitivesBenchmark {
+
+    private static final String PROVIDER = BouncyCastleProvider.PROVIDER_NAME;
+    private static final byte[] VOTE = ("{\"voterId\":\"VOTER-0001\", \"voteData\":\"Candidate A\", "
+            + "\"electionId\":1, \"electionName\":\"General Election\"}").getBytes(StandardCharsets.UTF_8);
+
+    @Param({"getInstance", "cached"})
+    private String primitives;
+
+    private boolean cached;
+    private SecretKeySpec aesKey;
+    private SecretKeySpec hmacKey;
+    private KeyPair authority;
+    private KeyPair ephemeral;
+
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        Security.addProvider(new BouncyCastleProvider());
+        cached = "cached".equals(primitives);
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        aesKey = new SecretKeySpec(key, "AES");
+        hmacKey = new SecretKeySpec(key, "HmacSHA256");
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC", PROVIDER);
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        authority = generator.generateKeyPair();
+        ephemeral = generator.generateKeyPair();
+    }
+
+    @Benchmark
+    public byte[] aesGcmEncrypt() throws GeneralSecurityException {
+        byte[] iv = new byte[12];
+        random().nextBytes(iv);
+        Cipher cipher = cached
+                ? CryptoPrimitives.cipher("AES/GCM/NoPadding", PROVIDER)
+                : Cipher.getInstance("AES/GCM/NoPadding", PROVIDER);
+        cipher.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(128, iv));
+        return cipher.doFinal(VOTE);
+    }
+
+    @Benchmark
+    public byte[] hmacSha256() throws GeneralSecurityException {
+        Mac mac = cached ? CryptoPrimitives.mac("HmacSHA256") : Mac.getInstance("HmacSHA256");
+        mac.init(hmacKey);
+        return mac.doFinal(VOTE);
+    }
+
+    @Benchmark
+    public byte[] sha256() throws GeneralSecurityException {
+        MessageDigest digest = cached
+                ? CryptoPrimitives.messageDigest("SHA-256", PROVIDER)
+                : MessageDigest.getInstance("SHA-256", PROVIDER);
+        return digest.digest(VOTE);
+    }
+
+    @Benchmark
+    public byte[] ivGeneration() {
+        byte[] iv = new byte[12];
+        random().nextBytes(iv);
+        return iv;
+    }
+
+    @Benchmark
+    public byte[] ecdhAgreement() throws GeneralSecurityException {
+        KeyAgreement agreement = cached
+                ? CryptoPrimitives.keyAgreement("ECDH", PROVIDER)
+                : KeyAgreement.getInstance("ECDH", PROVIDER);
+        agreement.init(ephemeral.getPrivate());
+        agreement.doPhase(authority.getPublic(), true);
+        return agreement.generateSecret();
+    }
+
+    private SecureRandom random() {
+        return cached ? CryptoPrimitives.secureRandom() : new SecureRandom();
+    }
+}
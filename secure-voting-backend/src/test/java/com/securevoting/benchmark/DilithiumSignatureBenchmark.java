@@ -0,0 +1,64 @@
+package com.securevoting.benchmark;
+
+import com.securevoting.service.PostQuantumSignatureService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PostQuantumSignatureService sign and verify of a vote per Dilithium parameter set
+ * (quantum.crypto.signature.algorithm).
+ *
+ * Reports throughput (ops/ms) and the sampled latency distribution including p0.99;
+ * the benchmarks profile adds -prof gc for allocation rate.
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="DilithiumSignatureBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DilithiumSignatureBenchmark {
+
+    private static final byte[] VOTE = ("{\"voterId\":\"VOTER-0001\", \"voteData\":\"Candidate A\", "
+            + "\"electionId\":1, \"electionName\":\"General Election\"}").getBytes(StandardCharsets.UTF_8);
+
+    @Param({"Dilithium2", "Dilithium3", "Dilithium5"})
+    private String algorithm;
+
+    private PostQuantumSignatureService signatures;
+    private PostQuantumSignatureService.SignatureResult signed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        signatures = BenchmarkServices.dilithium(algorithm);
+        signed = signatures.sign(VOTE);
+        if (!signatures.verify(VOTE, signed.getSignature(), signed.getPublicKey())) {
+            throw new IllegalStateException(algorithm + " signature does not verify");
+        }
+    }
+
+    @Benchmark
+    public PostQuantumSignatureService.SignatureResult sign() throws Exception {
+        return signatures.sign(VOTE);
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception {
+        return signatures.verify(VOTE, signed.getSignature(), signed.getPublicKey());
+    }
+}
@@ -0,0 +1,68 @@
+package com.securevoting.benchmark;
+
+import com.securevoting.service.LiboqsCryptoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LiboqsCryptoService encapsulate and decapsulate per Kyber parameter set. With the key
+ * pair pool on, sustained encapsulation outruns the background refill, so the pooled
+ * numbers show the steady state rather than a full pool; keyPool=false is key
+ * generation inline on every call.
+ *
+ * Reports throughput (ops/ms) and the sampled latency distribution including p0.99;
+ * the benchmarks profile adds -prof gc for allocation rate.
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="KyberKemBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KyberKemBenchmark {
+
+    @Param({"Kyber512", "Kyber768", "Kyber1024"})
+    private String parameterSet;
+
+    @Param({"true", "false"})
+    private boolean keyPool;
+
+    private LiboqsCryptoService kyber;
+    private LiboqsCryptoService.LiboqsResult encapsulated;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        kyber = BenchmarkServices.kyber(parameterSet, keyPool);
+        encapsulated = kyber.encapsulate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        kyber.shutdown();
+    }
+
+    @Benchmark
+    public LiboqsCryptoService.LiboqsResult encapsulate() throws Exception {
+        return kyber.encapsulate();
+    }
+
+    @Benchmark
+    public byte[] decapsulate() throws Exception {
+        return kyber.decapsulate(encapsulated.getSecretKey(), encapsulated.getCiphertext());
+    }
+}
@@ -0,0 +1,94 @@
+package com.securevoting.benchmark;
+
+import com.securevoting.service.PngEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode time of a stego image per PNG encoder setting, against ImageIO.write.
+ * The output size of every setting is printed once during setup.
+ *
+ * Run from secure-voting-backend (cover.png is read from the working directory):
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="PngEncoderBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PngEncoderBenchmark {
+
+    @Param({"1", "6", "9"})
+    private int compressionLevel;
+
+    @Param({"NONE", "UP", "ADAPTIVE"})
+    private String filter;
+
+    // Size of the embedded vote payload; decides how many cover rows are rewritten
+    @Param({"2048"})
+    private int payloadBytes;
+
+    private PngEncoder encoder;
+    private PngEncoder.EncodedRows coverRows;
+    private BufferedImage stegoImage;
+    private int dirtyRows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BufferedImage cover = ImageIO.read(new File("cover.png"));
+        encoder = new PngEncoder(compressionLevel, PngEncoder.Filter.valueOf(filter), 64);
+        coverRows = encoder.precompress(cover);
+
+        // Same rows an embed of payloadBytes touches, with random least significant bits
+        stegoImage = new BufferedImage(cover.getColorModel(), cover.copyData(null), cover.isAlphaPremultiplied(), null);
+        int width = stegoImage.getWidth();
+        long pixels = ((4L + payloadBytes) * 8 + 2) / 3;
+        dirtyRows = (int) ((pixels + width - 1) / width);
+        Random random = new Random(42);
+        for (int i = 0; i < pixels; i++) {
+            int x = i % width;
+            int y = i / width;
+            stegoImage.setRGB(x, y, (stegoImage.getRGB(x, y) & 0xFFFEFEFE) | (random.nextInt() & 0x010101));
+        }
+
+        System.out.printf("%n[level=%d filter=%s] cached: %d bytes, full: %d bytes, ImageIO: %d bytes%n",
+                compressionLevel, filter, encodeWithCachedCover().length, encodeFullImage().length,
+                imageIoWrite().length);
+    }
+
+    @Benchmark
+    public byte[] encodeWithCachedCover() {
+        return encoder.encode(stegoImage, coverRows, dirtyRows);
+    }
+
+    @Benchmark
+    public byte[] encodeFullImage() {
+        return encoder.encode(stegoImage);
+    }
+
+    @Benchmark
+    public byte[] imageIoWrite() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(stegoImage, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,92 @@
+package com.securevoting.benchmark;
+
+import com.securevoting.service.SteganographyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SteganographyService embedData and extractData per payload size and cover
+ * resolution. Covers are cover.png rescaled, so their content compresses like the real
+ * cover; 1200x1098 is cover.png itself.
+ *
+ * Run from secure-voting-backend (cover.png is read from the working directory):
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="SteganographyBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SteganographyBenchmark {
+
+    // Binary ECDH/QKD payload, binary Kyber768 payload, and headroom for multi-vote data
+    @Param({"256", "4900", "16384"})
+    private int payloadBytes;
+
+    @Param({"640x480", "1200x1098", "1920x1080"})
+    private String coverResolution;
+
+    private SteganographyService steganography;
+    private byte[] payload;
+    private byte[] stegoImage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        steganography = BenchmarkServices.steganography(cover(coverResolution).getPath());
+        payload = new byte[payloadBytes];
+        new Random(42).nextBytes(payload);
+        stegoImage = steganography.embedData(payload);
+        System.out.printf("%n[%s, %d bytes] stego PNG: %d bytes%n", coverResolution, payloadBytes, stegoImage.length);
+    }
+
+    @Benchmark
+    public byte[] embedData() throws IOException {
+        return steganography.embedData(payload);
+    }
+
+    @Benchmark
+    public byte[] extractData() throws IOException {
+        return steganography.extractData(stegoImage);
+    }
+
+    private static File cover(String resolution) throws IOException {
+        BufferedImage original = ImageIO.read(new File("cover.png"));
+        String[] size = resolution.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        if (original.getWidth() == width && original.getHeight() == height) {
+            return new File("cover.png");
+        }
+
+        BufferedImage scaled = new BufferedImage(width, height, original.getType());
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(original, 0, 0, width, height, null);
+        graphics.dispose();
+
+        File file = File.createTempFile("cover-" + resolution + "-", ".png");
+        file.deleteOnExit();
+        ImageIO.write(scaled, "png", file);
+        return file;
+    }
+}
@@ -0,0 +1,67 @@
+package com.securevoting.benchmark;
+
+import com.securevoting.service.SteganographyService;
+import com.securevoting.service.UnifiedCryptoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UnifiedCryptoService end to end per key exchange: encryptVote, and decryptVote from a
+ * stego image (extraction, parsing, key reconstruction and AES-GCM). Compares the
+ * settings of quantum.crypto.mode and quantum.crypto.algorithm.
+ *
+ * Reports throughput (ops/ms) and the sampled latency distribution including p0.99;
+ * the benchmarks profile adds -prof gc for allocation rate (gc.alloc.rate.norm is
+ * bytes per operation).
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="VoteCryptoBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VoteCryptoBenchmark {
+
+    private static final String VOTE_JSON =
+            "{\"voterId\":\"VOTER-0001\", \"voteData\":\"Candidate A\", \"electionId\":1, \"electionName\":\"General Election\"}";
+
+    @Param({"ECDH", "QKD-BB84", "Kyber512", "Kyber768", "Kyber1024"})
+    private String algorithm;
+
+    private UnifiedCryptoService crypto;
+    private byte[] stegoImage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        crypto = BenchmarkServices.unifiedCrypto(algorithm, "binary");
+        SteganographyService steganography = BenchmarkServices.steganography();
+        stegoImage = steganography.embedData(crypto.encryptVoteForEmbedding(VOTE_JSON));
+        if (!VOTE_JSON.equals(crypto.decryptVote(stegoImage))) {
+            throw new IllegalStateException(algorithm + " round trip failed");
+        }
+    }
+
+    @Benchmark
+    public String encryptVote() throws Exception {
+        return crypto.encryptVote(VOTE_JSON);
+    }
+
+    @Benchmark
+    public String decryptVote() throws Exception {
+        return crypto.decryptVote(stegoImage);
+    }
+}
@@ -0,0 +1,85 @@
+package com.securevoting.benchmark;
+
+import com.securevoting.dto.VotePayload;
+import com.securevoting.dto.VotePayloadCodec;
+import com.securevoting.service.SteganographyService;
+import com.securevoting.service.UnifiedCryptoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary vs JSON VotePayload wire format per key exchange algorithm: serialization and
+ * parsing throughput, plus the stego embed/extract round trip whose cost grows with the
+ * payload size. Payload sizes are printed once during setup.
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="VotePayloadBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VotePayloadBenchmark {
+
+    private static final String VOTE_JSON =
+            "{\"voterId\":\"VOTER-0001\", \"voteData\":\"Candidate A\", \"electionId\":1, \"electionName\":\"General Election\"}";
+
+    @Param({"ECDH", "QKD-BB84", "Kyber768"})
+    private String algorithm;
+
+    @Param({"json", "binary"})
+    private String format;
+
+    private VotePayload payload;
+    private byte[] encoded;
+    private byte[] stegoImage;
+    private SteganographyService steganography;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        UnifiedCryptoService crypto = BenchmarkServices.unifiedCrypto(algorithm, format);
+        steganography = BenchmarkServices.steganography();
+        payload = VotePayloadCodec.parse(crypto.encryptVote(VOTE_JSON).getBytes(StandardCharsets.UTF_8));
+        encoded = serialize();
+        stegoImage = steganography.embedData(encoded);
+        System.out.printf("%n[%s/%s] payload: %d bytes, stego PNG: %d bytes%n",
+                algorithm, format, encoded.length, stegoImage.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return "binary".equals(format)
+                ? VotePayloadCodec.encode(payload)
+                : VotePayloadCodec.toJson(payload).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public VotePayload parse() {
+        return VotePayloadCodec.parse(encoded);
+    }
+
+    @Benchmark
+    public byte[] embed() throws IOException {
+        return steganography.embedData(encoded);
+    }
+
+    @Benchmark
+    public VotePayload extractAndParse() throws IOException {
+        return VotePayloadCodec.parse(steganography.extractData(stegoImage));
+    }
+}
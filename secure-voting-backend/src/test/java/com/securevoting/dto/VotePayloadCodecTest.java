@@ -0,0 +1,139 @@
+package com.securevoting.dto;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VotePayloadCodecTest {
+
+	private final Random random = new Random(11);
+
+	@Test
+	void roundTripsEcdhPayload() {
+		VotePayload payload = new VotePayload("ECDH", randomBase64(91), randomBase64(12), randomBase64(150),
+				randomBase64(32));
+
+		assertRoundTrip(payload);
+	}
+
+	@Test
+	void roundTripsQkdPayloads() {
+		// Current metadata is Base64, legacy metadata is JSON text
+		VotePayload payload = new VotePayload("QKD-BB84", randomBase64(113), randomBase64(12), randomBase64(150),
+				randomBase64(32), true);
+		assertRoundTrip(payload);
+
+		payload.setQkdMetadata("{\"aliceBases\":[0,1,1],\"errorRate\":0.0,\"numberOfQubits\":3}");
+		payload.setVersion(2);
+		assertRoundTrip(payload);
+	}
+
+	@Test
+	void roundTripsKyberPayload() {
+		String publicKey = randomBase64(1184);
+		Map<String, String> metadata = new LinkedHashMap<>();
+		metadata.put("secretKey", randomBase64(32));
+		metadata.put("ciphertext", randomBase64(1088));
+		metadata.put("publicKey", publicKey);
+		metadata.put("algorithm", "Kyber768");
+
+		VotePayload payload = new VotePayload();
+		payload.setAlgorithm("Kyber768");
+		payload.setEphemeralPublicKey(publicKey);
+		payload.setQkdMetadata(new Gson().toJson(metadata));
+		payload.setIv(randomBase64(12));
+		payload.setCipherText(randomBase64(150));
+		payload.setHmac(randomBase64(32));
+
+		byte[] encoded = assertRoundTrip(payload);
+		// The public key is stored once, not again inside the metadata
+		assertTrue(encoded.length < 1184 + 1088 + 32 + 12 + 150 + 32 + 64, "binary size " + encoded.length);
+	}
+
+	@Test
+	void roundTripsKyberMetadataWithOtherPublicKeyAsText() {
+		Map<String, String> metadata = new LinkedHashMap<>();
+		metadata.put("secretKey", randomBase64(32));
+		metadata.put("ciphertext", randomBase64(64));
+		metadata.put("publicKey", randomBase64(64));
+		metadata.put("algorithm", "Kyber512");
+
+		VotePayload payload = new VotePayload("Kyber512", randomBase64(64), randomBase64(12), randomBase64(40),
+				randomBase64(32));
+		payload.setQkdMetadata(new Gson().toJson(metadata));
+
+		assertRoundTrip(payload);
+	}
+
+	@Test
+	void parsesLegacyJsonPayload() {
+		VotePayload payload = new VotePayload("ECDH", randomBase64(91), randomBase64(12), randomBase64(150),
+				randomBase64(32));
+		byte[] json = VotePayloadCodec.toJson(payload).getBytes(StandardCharsets.UTF_8);
+
+		assertFalse(VotePayloadCodec.isBinary(json));
+		assertPayloadEquals(payload, VotePayloadCodec.parse(json));
+	}
+
+	@Test
+	void rejectsTruncatedVarint() {
+		// Magic, format version, then a length varint whose continuation byte never comes
+		byte[] truncated = {'S', 'V', 'P', 1, (byte) 0x85};
+
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+				() -> VotePayloadCodec.parse(truncated));
+		assertEquals("Truncated vote payload", error.getMessage());
+	}
+
+	@Test
+	void rejectsOverlongVarint() {
+		byte[] overlong = {'S', 'V', 'P', 1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 1};
+
+		assertThrows(IllegalArgumentException.class, () -> VotePayloadCodec.parse(overlong));
+	}
+
+	@Test
+	void rejectsFieldLongerThanPayload() {
+		byte[] encoded = VotePayloadCodec.encode(new VotePayload("ECDH", randomBase64(91), randomBase64(12),
+				randomBase64(150), randomBase64(32)));
+		byte[] truncated = new byte[encoded.length - 40];
+		System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+
+		assertThrows(IllegalArgumentException.class, () -> VotePayloadCodec.parse(truncated));
+	}
+
+	private byte[] assertRoundTrip(VotePayload payload) {
+		byte[] encoded = VotePayloadCodec.encode(payload);
+		assertTrue(VotePayloadCodec.isBinary(encoded));
+		assertPayloadEquals(payload, VotePayloadCodec.parse(encoded));
+		assertTrue(encoded.length < VotePayloadCodec.toJson(payload).length(), "binary larger than JSON");
+		return encoded;
+	}
+
+	// Decoding must give back the exact strings, since HMACs are computed over the Base64 fields
+	private static void assertPayloadEquals(VotePayload expected, VotePayload actual) {
+		assertEquals(expected.getAlgorithm(), actual.getAlgorithm());
+		assertEquals(expected.getEphemeralPublicKey(), actual.getEphemeralPublicKey());
+		assertEquals(expected.getQkdMetadata(), actual.getQkdMetadata());
+		assertEquals(expected.getIv(), actual.getIv());
+		assertEquals(expected.getCipherText(), actual.getCipherText());
+		assertEquals(expected.getHmac(), actual.getHmac());
+		assertEquals(expected.getVersion(), actual.getVersion());
+	}
+
+	private String randomBase64(int length) {
+		byte[] bytes = new byte[length];
+		random.nextBytes(bytes);
+		return Base64.getEncoder().encodeToString(bytes);
+	}
+}
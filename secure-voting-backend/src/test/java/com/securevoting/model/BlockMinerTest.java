@@ -0,0 +1,69 @@
+package com.securevoting.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockMinerTest {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789{}\":,é€";
+
+	@Test
+	void hashMatchesCalculateHashOverRandomHeaders() {
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			Block block = randomBlock(random);
+			BlockMiner miner = block.newMiner();
+			for (int nonce : new int[] {0, 1, -1, random.nextInt(), Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+				block.setNonce(nonce);
+				assertEquals(block.calculateHash(), miner.hashHex(nonce), "header " + i + ", nonce " + nonce);
+			}
+		}
+	}
+
+	@Test
+	void minedBlockHasValidHash() {
+		Random random = new Random(7);
+		for (int difficulty = 0; difficulty <= 3; difficulty++) {
+			Block block = randomBlock(random);
+			block.mineBlock(difficulty);
+			assertEquals(block.calculateHash(), block.getHash());
+			assertTrue(block.getHash().startsWith("0".repeat(difficulty)), block.getHash());
+		}
+	}
+
+	@Test
+	void meetsDifficultyAgreesWithHexHash() {
+		Block block = randomBlock(new Random(3));
+		BlockMiner miner = block.newMiner();
+		for (int nonce = 0; nonce < 5000; nonce++) {
+			String hash = miner.hashHex(nonce);
+			for (int difficulty = 1; difficulty <= 3; difficulty++) {
+				assertEquals(hash.startsWith("0".repeat(difficulty)), miner.meetsDifficulty(nonce, difficulty),
+						"nonce " + nonce + ", difficulty " + difficulty);
+			}
+		}
+	}
+
+	// Header lengths vary around the 64-byte SHA-256 block size, with multi-byte UTF-8 characters
+	private static Block randomBlock(Random random) {
+		Block block = new Block(randomString(random, random.nextInt(300)), randomString(random, random.nextInt(130)),
+				"voter", 1, 1, "election");
+		block.setTimestamp(random.nextLong());
+		if (random.nextBoolean()) {
+			block.setMerkleRoot(randomString(random, 64));
+		}
+		return block;
+	}
+
+	private static String randomString(Random random, int length) {
+		StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+		return builder.toString();
+	}
+}
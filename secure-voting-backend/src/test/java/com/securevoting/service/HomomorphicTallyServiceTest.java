@@ -0,0 +1,212 @@
+package com.securevoting.service;
+
+import com.securevoting.model.Candidate;
+import com.securevoting.model.HomomorphicTally;
+import com.securevoting.repository.CandidateRepository;
+import com.securevoting.repository.HomomorphicTallyRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.File;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * encryptBallot -> record -> decrypt round trips. The aggregates upserted through the
+ * mocked JdbcTemplate are kept in memory and served back by the tally repository.
+ */
+class HomomorphicTallyServiceTest {
+
+	private static final int ELECTION_ID = 1;
+	private static final File[] KEY_FILES = {
+			new File("homomorphic_authority_public.key"), new File("homomorphic_authority_private.key")};
+
+	private static boolean keysExisted;
+
+	private final Map<Integer, HomomorphicTally> tallies = new HashMap<>();
+	private final List<Candidate> candidates = new ArrayList<>();
+	private HomomorphicTallyService service;
+	private int nextBlockHeight;
+
+	@BeforeAll
+	static void rememberKeys() {
+		keysExisted = KEY_FILES[0].exists() && KEY_FILES[1].exists();
+	}
+
+	@AfterAll
+	static void removeGeneratedKeys() {
+		if (!keysExisted) {
+			for (File keyFile : KEY_FILES) {
+				keyFile.delete();
+			}
+		}
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CandidateRepository candidateRepository = mock(CandidateRepository.class);
+		when(candidateRepository.findByElectionId(ELECTION_ID)).thenAnswer(invocation -> new ArrayList<>(candidates));
+		HomomorphicTallyRepository tallyRepository = mock(HomomorphicTallyRepository.class);
+		when(tallyRepository.findById(anyInt()))
+				.thenAnswer(invocation -> Optional.ofNullable(tallies.get(invocation.<Integer>getArgument(0))));
+
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(invocation -> {
+			if (invocation.<String>getArgument(0).startsWith("INSERT INTO homomorphic_tallies")) {
+				upsertTallies(invocation.getArgument(1), invocation.getArgument(3));
+			}
+			return new int[0][];
+		});
+
+		service = new HomomorphicTallyService();
+		ReflectionTestUtils.setField(service, "enabled", true);
+		ReflectionTestUtils.setField(service, "candidateRepository", candidateRepository);
+		ReflectionTestUtils.setField(service, "tallyRepository", tallyRepository);
+		ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+		service.init();
+	}
+
+	@Test
+	void decryptsKnownBallots() {
+		addCandidates(3, 7, 11);
+		commit(cast(3, 7, 3, 3, 7, 3, 3));
+
+		assertEquals(Map.of(3, 5, 7, 2, 11, 0), decrypt());
+		assertEquals(7L, tallies.get(ELECTION_ID).getBallots());
+	}
+
+	@Test
+	void allZeroBallotCountsForNoCandidate() {
+		addCandidates(3, 7);
+		// 99 is not a candidate of the election, so its ballot is all zeros
+		commit(cast(3, 99));
+		commit(cast(99));
+
+		assertEquals(Map.of(3, 1, 7, 0), decrypt());
+		assertEquals(3L, tallies.get(ELECTION_ID).getBallots());
+	}
+
+	@Test
+	void candidateAddedMidElectionStartsFromItsFirstBallot() {
+		addCandidates(3, 7);
+		commit(cast(3, 7, 7));
+		addCandidates(12);
+		commit(cast(12, 3));
+		commit(cast(12, 12, 7));
+
+		assertEquals(Map.of(3, 2, 7, 3, 12, 3), decrypt());
+	}
+
+	@Test
+	void rolledBackBatchIsNotCounted() {
+		addCandidates(3, 7);
+		commit(cast(3));
+		rollBack(cast(7, 7, 7));
+		commit(cast(7));
+
+		assertEquals(Map.of(3, 1, 7, 1), decrypt());
+	}
+
+	@Test
+	void disabledServiceEncryptsNothing() {
+		ReflectionTestUtils.setField(service, "enabled", false);
+		addCandidates(3);
+
+		assertNull(service.encryptBallot(ELECTION_ID, 3));
+		assertEquals(Optional.empty(), service.findTally(ELECTION_ID));
+	}
+
+	private void addCandidates(int... candidateIds) {
+		for (int candidateId : candidateIds) {
+			Candidate candidate = new Candidate();
+			candidate.setCandidateId(candidateId);
+			candidate.setElectionId(ELECTION_ID);
+			candidate.setName("Candidate " + candidateId);
+			candidates.add(candidate);
+		}
+	}
+
+	private List<HomomorphicTallyService.BallotRecord> cast(int... candidateIds) {
+		List<HomomorphicTallyService.BallotRecord> ballots = new ArrayList<>();
+		int blockHeight = nextBlockHeight++;
+		for (int i = 0; i < candidateIds.length; i++) {
+			ballots.add(new HomomorphicTallyService.BallotRecord(blockHeight, i, ELECTION_ID, "Election",
+					service.encryptBallot(ELECTION_ID, candidateIds[i])));
+		}
+		return ballots;
+	}
+
+	private void commit(List<HomomorphicTallyService.BallotRecord> ballots) {
+		complete(ballots, TransactionSynchronization.STATUS_COMMITTED);
+	}
+
+	// The upsert already ran, so the stored aggregate is put back as it was before the batch
+	private void rollBack(List<HomomorphicTallyService.BallotRecord> ballots) {
+		HomomorphicTally before = tallies.get(ELECTION_ID);
+		complete(ballots, TransactionSynchronization.STATUS_ROLLED_BACK);
+		tallies.put(ELECTION_ID, before);
+	}
+
+	private void complete(List<HomomorphicTallyService.BallotRecord> ballots, int status) {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			service.record(ballots);
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCompletion(status);
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	private Map<Integer, Integer> decrypt() {
+		return service.decrypt(service.findTally(ELECTION_ID).orElseThrow());
+	}
+
+	// Runs the upsert's statement setter and keeps the written row
+	@SuppressWarnings("unchecked")
+	private <T> void upsertTallies(Collection<T> rows, ParameterizedPreparedStatementSetter<T> setter) throws Exception {
+		for (T row : rows) {
+			PreparedStatement statement = mock(PreparedStatement.class);
+			setter.setValues(statement, row);
+
+			ArgumentCaptor<Integer> ints = ArgumentCaptor.forClass(Integer.class);
+			ArgumentCaptor<String> name = ArgumentCaptor.forClass(String.class);
+			ArgumentCaptor<byte[]> ciphertext = ArgumentCaptor.forClass(byte[].class);
+			ArgumentCaptor<Long> ballots = ArgumentCaptor.forClass(Long.class);
+			verify(statement).setInt(eq(1), ints.capture());
+			verify(statement).setString(eq(2), name.capture());
+			verify(statement).setBytes(eq(3), ciphertext.capture());
+			verify(statement).setLong(eq(4), ballots.capture());
+			verify(statement).setInt(eq(5), ints.capture());
+
+			int electionId = ints.getAllValues().get(0);
+			tallies.put(electionId, new HomomorphicTally(electionId, name.getValue(), ciphertext.getValue(),
+					ballots.getValue(), ints.getAllValues().get(1)));
+		}
+	}
+}
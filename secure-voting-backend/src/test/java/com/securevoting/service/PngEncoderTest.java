@@ -0,0 +1,112 @@
+package com.securevoting.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Output of the segmented encoder must be a PNG that ImageIO decodes to the same pixels,
+ * for every filter, compression level and segment size, whether the rows are compressed
+ * fresh or reused from the cover.
+ */
+class PngEncoderTest {
+
+	private static final int[] LEVELS = {0, 1, 6, 9};
+	private static final int[] SEGMENT_ROWS = {1, 7, 64};
+	private static final int[] IMAGE_TYPES = {
+			BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR,
+			BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR};
+	// 1 byte dirties the first row only, 600 bytes dirty 31 rows of a 53 pixel wide cover
+	private static final int[] PAYLOAD_LENGTHS = {1, 600};
+
+	@TempDir
+	Path coverDir;
+
+	@Test
+	void encodesEveryImageLayout() throws IOException {
+		for (int type : IMAGE_TYPES) {
+			BufferedImage image = StegoImages.randomCover(type, 53, 37, type);
+			for (PngEncoder.Filter filter : PngEncoder.Filter.values()) {
+				for (int level : LEVELS) {
+					for (int segmentRows : SEGMENT_ROWS) {
+						String setting = "type " + type + ", " + filter + ", level " + level + ", " + segmentRows + " rows";
+						byte[] png = new PngEncoder(level, filter, segmentRows).encode(image);
+
+						StegoImages.assertSamePixels(image, read(png, setting), setting);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void embedDataRoundTripsAtEverySetting() throws IOException {
+		// ImageIO decodes these as 3BYTE_BGR and 4BYTE_ABGR covers
+		BufferedImage[] covers = {
+				writeCover("rgb.png", BufferedImage.TYPE_INT_RGB), writeCover("rgba.png", BufferedImage.TYPE_INT_ARGB)};
+
+		for (PngEncoder.Filter filter : PngEncoder.Filter.values()) {
+			for (int level : LEVELS) {
+				for (int segmentRows : SEGMENT_ROWS) {
+					SteganographyService service = service(filter, level, segmentRows);
+					int embedded = 0;
+					for (int length : PAYLOAD_LENGTHS) {
+						for (int i = 0; i < covers.length; i++) {
+							String setting = filter + ", level " + level + ", " + segmentRows + " rows, cover " + i
+									+ ", " + length + " bytes";
+							byte[] data = StegoImages.randomPayload(length, embedded);
+							// Covers are used in turn
+							BufferedImage cover = covers[embedded++ % covers.length];
+
+							byte[] png = service.embedData(data);
+
+							BufferedImage expected = StegoImages.legacyEmbed(StegoImages.copy(cover), data);
+							StegoImages.assertSamePixels(expected, read(png, setting), setting);
+							assertArrayEquals(data, service.extractData(png), setting);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void rejectsInvalidSettings() {
+		assertThrows(IllegalArgumentException.class, () -> new PngEncoder(10, PngEncoder.Filter.NONE, 64));
+		assertThrows(IllegalArgumentException.class, () -> new PngEncoder(6, PngEncoder.Filter.NONE, 0));
+	}
+
+	private BufferedImage writeCover(String name, int type) throws IOException {
+		File file = coverDir.resolve(name).toFile();
+		ImageIO.write(StegoImages.randomCover(type, 53, 40, name.hashCode()), "png", file);
+		return ImageIO.read(file);
+	}
+
+	private SteganographyService service(PngEncoder.Filter filter, int level, int segmentRows) {
+		SteganographyService service = new SteganographyService();
+		ReflectionTestUtils.setField(service, "coverPaths",
+				coverDir.resolve("rgb.png") + "," + coverDir.resolve("rgba.png"));
+		ReflectionTestUtils.setField(service, "pngFilter", filter.name().toLowerCase());
+		ReflectionTestUtils.setField(service, "pngCompressionLevel", level);
+		ReflectionTestUtils.setField(service, "pngSegmentRows", segmentRows);
+		service.init();
+		return service;
+	}
+
+	private static BufferedImage read(byte[] png, String setting) throws IOException {
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+		assertNotNull(image, "ImageIO could not decode the PNG for " + setting);
+		return image;
+	}
+}
@@ -0,0 +1,181 @@
+package com.securevoting.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The scanline reader behind the extractData fast path: it must decode PNGs written by
+ * ImageIO (every block stored before the custom encoder) and by {@link PngEncoder}, and
+ * decline anything else so extractData falls back to ImageIO.
+ */
+class PngScanlineReaderTest {
+
+	private static final int WIDTH = 61;
+	private static final int HEIGHT = 45;
+
+	private final SteganographyService service = new SteganographyService();
+
+	@Test
+	void readsImageIoPngs() throws IOException {
+		for (int type : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB}) {
+			BufferedImage image = StegoImages.randomCover(type, WIDTH, HEIGHT, type);
+
+			assertRowsMatch(image, writeWithImageIo(image));
+		}
+	}
+
+	@Test
+	void extractsFromImageIoPngs() throws IOException {
+		for (int type : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB}) {
+			byte[] data = StegoImages.randomPayload(800, type);
+			BufferedImage stego = StegoImages.legacyEmbed(StegoImages.randomCover(type, WIDTH, HEIGHT, type), data);
+			byte[] png = writeWithImageIo(stego);
+
+			assertNotNull(PngScanlineReader.open(png));
+			assertArrayEquals(data, service.extractData(png), "type " + type);
+		}
+	}
+
+	@Test
+	void readsEncoderOutput() throws IOException {
+		for (int type : new int[]{BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR}) {
+			BufferedImage image = StegoImages.randomCover(type, WIDTH, HEIGHT, type);
+			for (PngEncoder.Filter filter : PngEncoder.Filter.values()) {
+				byte[] png = new PngEncoder(6, filter, 7).encode(image);
+
+				assertRowsMatch(image, png);
+			}
+		}
+	}
+
+	@Test
+	void declinesGrayscalePng() throws IOException {
+		byte[] png = writeWithImageIo(StegoImages.randomCover(BufferedImage.TYPE_BYTE_GRAY, WIDTH, HEIGHT, 1));
+
+		assertEquals(0, png[25], "color type");
+		assertNull(PngScanlineReader.open(png));
+	}
+
+	@Test
+	void extractFallsBackForPalettePng() throws IOException {
+		// Covers built from 32 colors stay within a 256 color palette after the embed
+		Random random = new Random(5);
+		int[] baseColors = new int[32];
+		for (int i = 0; i < baseColors.length; i++) {
+			baseColors[i] = random.nextInt() & 0xFEFEFE;
+		}
+		BufferedImage cover = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				cover.setRGB(x, y, baseColors[random.nextInt(baseColors.length)]);
+			}
+		}
+		byte[] data = StegoImages.randomPayload(500, 5);
+		byte[] png = writeWithImageIo(toPalette(StegoImages.legacyEmbed(cover, data)));
+
+		assertEquals(3, png[25], "color type");
+		assertNull(PngScanlineReader.open(png));
+		assertArrayEquals(data, service.extractData(png));
+	}
+
+	@Test
+	void extractFallsBackForInterlacedPng() throws IOException {
+		byte[] data = StegoImages.randomPayload(500, 9);
+		BufferedImage stego = StegoImages.legacyEmbed(
+				StegoImages.randomCover(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT, 9), data);
+		byte[] png = writeInterlaced(stego);
+
+		assertEquals(1, png[28], "interlace method");
+		assertNull(PngScanlineReader.open(png));
+		assertArrayEquals(data, service.extractData(png));
+	}
+
+	@Test
+	void declinesNonPngData() {
+		assertNull(PngScanlineReader.open(new byte[0]));
+		assertNull(PngScanlineReader.open(StegoImages.randomPayload(100, 3)));
+	}
+
+	private static void assertRowsMatch(BufferedImage image, byte[] png) throws IOException {
+		PngScanlineReader reader = PngScanlineReader.open(png);
+		assertNotNull(reader);
+		boolean alpha = image.getColorModel().hasAlpha();
+		assertEquals(WIDTH, reader.getWidth());
+		assertEquals(HEIGHT, reader.getHeight());
+		assertEquals(alpha ? 4 : 3, reader.getBytesPerPixel());
+
+		for (int y = 0; y < HEIGHT; y++) {
+			byte[] row = reader.nextRow();
+			for (int x = 0; x < WIDTH; x++) {
+				int offset = x * reader.getBytesPerPixel();
+				int pixel = (row[offset] & 0xFF) << 16 | (row[offset + 1] & 0xFF) << 8 | row[offset + 2] & 0xFF;
+				pixel |= alpha ? (row[offset + 3] & 0xFF) << 24 : 0xFF000000;
+				assertEquals(Integer.toHexString(image.getRGB(x, y)), Integer.toHexString(pixel),
+						"pixel (" + x + ", " + y + ")");
+			}
+		}
+	}
+
+	private static BufferedImage toPalette(BufferedImage image) {
+		Map<Integer, Integer> indexes = new LinkedHashMap<>();
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				indexes.putIfAbsent(image.getRGB(x, y) & 0xFFFFFF, indexes.size());
+			}
+		}
+		byte[] red = new byte[indexes.size()];
+		byte[] green = new byte[indexes.size()];
+		byte[] blue = new byte[indexes.size()];
+		for (Map.Entry<Integer, Integer> entry : indexes.entrySet()) {
+			red[entry.getValue()] = (byte) (entry.getKey() >> 16);
+			green[entry.getValue()] = (byte) (entry.getKey() >> 8);
+			blue[entry.getValue()] = (byte) (int) entry.getKey();
+		}
+
+		BufferedImage palette = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_INDEXED,
+				new IndexColorModel(8, indexes.size(), red, green, blue));
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				palette.getRaster().setSample(x, y, 0, indexes.get(image.getRGB(x, y) & 0xFFFFFF));
+			}
+		}
+		return palette;
+	}
+
+	private static byte[] writeWithImageIo(BufferedImage image) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+	private static byte[] writeInterlaced(BufferedImage image) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+			writer.setOutput(stream);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return out.toByteArray();
+	}
+}
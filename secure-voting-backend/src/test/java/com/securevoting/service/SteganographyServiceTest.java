@@ -0,0 +1,113 @@
+package com.securevoting.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The raster-level embed must change exactly the bits the per-pixel getRGB/setRGB
+ * embed changed, for every image layout, whether it writes the buffer directly or
+ * falls back to a bulk ARGB copy.
+ */
+class SteganographyServiceTest {
+
+	// Odd width so the payload ends part way through a row and part way through a pixel
+	private static final int WIDTH = 97;
+	private static final int HEIGHT = 61;
+	private static final int[] IMAGE_TYPES = {
+			BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR,
+			BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_USHORT_565_RGB};
+	// Full capacity is WIDTH * HEIGHT * 3 bits, 4 of its bytes taken by the length header
+	private static final int[] PAYLOAD_LENGTHS = {1, 5, 1000, 1501, WIDTH * HEIGHT * 3 / 8 - 4};
+
+	private final SteganographyService service = new SteganographyService();
+
+	@TempDir
+	Path coverDir;
+
+	@Test
+	void embedMatchesPerPixelEmbed() {
+		for (int type : IMAGE_TYPES) {
+			BufferedImage cover = StegoImages.randomCover(type, WIDTH, HEIGHT, type);
+			for (int length : PAYLOAD_LENGTHS) {
+				byte[] data = StegoImages.randomPayload(length, length);
+				BufferedImage expected = StegoImages.legacyEmbed(StegoImages.copy(cover), data);
+				BufferedImage actual = embed(StegoImages.copy(cover), data);
+
+				StegoImages.assertSamePixels(expected, actual, "type " + type + ", " + length + " bytes");
+				// 5-6-5 pixels drop the low bits of red and blue, so only the pixels can be compared
+				if (type != BufferedImage.TYPE_USHORT_565_RGB) {
+					assertArrayEquals(data, extract(actual), "type " + type + ", " + length + " bytes");
+				}
+			}
+		}
+	}
+
+	@Test
+	void embedMatchesPerPixelEmbedOnSubimage() {
+		// A subimage's raster is offset into its parent's buffer, so it takes the ARGB copy path
+		BufferedImage parent = StegoImages.randomCover(BufferedImage.TYPE_3BYTE_BGR, WIDTH + 10, HEIGHT + 10, 3);
+		byte[] data = StegoImages.randomPayload(700, 7);
+		BufferedImage expected = StegoImages.legacyEmbed(
+				StegoImages.copy(parent).getSubimage(4, 6, WIDTH, HEIGHT), data);
+		BufferedImage actual = embed(StegoImages.copy(parent).getSubimage(4, 6, WIDTH, HEIGHT), data);
+
+		StegoImages.assertSamePixels(expected, actual, "subimage");
+		assertArrayEquals(data, extract(actual));
+	}
+
+	@Test
+	void rejectsPayloadLargerThanImage() {
+		BufferedImage cover = StegoImages.randomCover(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT, 1);
+		byte[] data = new byte[WIDTH * HEIGHT * 3 / 8 - 3];
+
+		assertThrows(Exception.class, () -> embed(cover, data));
+	}
+
+	@Test
+	void undecodableCoverIsSkippedUntilItChanges() throws IOException {
+		File good = coverDir.resolve("good.png").toFile();
+		File broken = coverDir.resolve("broken.png").toFile();
+		ImageIO.write(StegoImages.randomCover(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT, 1), "png", good);
+		Files.write(broken.toPath(), new byte[]{1, 2, 3});
+
+		SteganographyService covers = spy(new SteganographyService());
+		ReflectionTestUtils.setField(covers, "coverPaths", good + "," + broken);
+		ReflectionTestUtils.setField(covers, "pngFilter", "adaptive");
+		ReflectionTestUtils.setField(covers, "pngCompressionLevel", 6);
+		ReflectionTestUtils.setField(covers, "pngSegmentRows", 64);
+		covers.init();
+
+		covers.reloadChangedCovers();
+		covers.reloadChangedCovers();
+		verify(covers, times(1)).reloadCovers();
+
+		// Replacing the broken file is picked up once
+		ImageIO.write(StegoImages.randomCover(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT, 2), "png", broken);
+		broken.setLastModified(broken.lastModified() + 2000);
+		covers.reloadChangedCovers();
+		covers.reloadChangedCovers();
+		verify(covers, times(2)).reloadCovers();
+	}
+
+	private BufferedImage embed(BufferedImage image, byte[] data) {
+		return ReflectionTestUtils.invokeMethod(service, "embed", image, data);
+	}
+
+	private byte[] extract(BufferedImage image) {
+		return ReflectionTestUtils.invokeMethod(service, "extract", image);
+	}
+}
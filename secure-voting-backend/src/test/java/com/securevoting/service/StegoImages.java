@@ -0,0 +1,83 @@
+package com.securevoting.service;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Covers and the reference embed for the steganography tests. The reference is the
+ * original per-pixel getRGB/setRGB loop that the direct raster embed replaced.
+ */
+final class StegoImages {
+
+	private StegoImages() {
+	}
+
+	static BufferedImage randomCover(int type, int width, int height, long seed) {
+		Random random = new Random(seed);
+		BufferedImage image = new BufferedImage(width, height, type);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				image.setRGB(x, y, random.nextInt());
+			}
+		}
+		return image;
+	}
+
+	static byte[] randomPayload(int length, long seed) {
+		byte[] data = new byte[length];
+		new Random(seed).nextBytes(data);
+		return data;
+	}
+
+	static BufferedImage copy(BufferedImage image) {
+		return new BufferedImage(image.getColorModel(), image.copyData(null), image.isAlphaPremultiplied(), null);
+	}
+
+	static BufferedImage legacyEmbed(BufferedImage image, byte[] data) {
+		boolean[] bits = new boolean[(4 + data.length) * 8];
+		int bitIndex = 0;
+		for (int i = 31; i >= 0; i--) {
+			bits[bitIndex++] = ((data.length >> i) & 1) == 1;
+		}
+		for (byte b : data) {
+			for (int i = 7; i >= 0; i--) {
+				bits[bitIndex++] = ((b >> i) & 1) == 1;
+			}
+		}
+
+		bitIndex = 0;
+		for (int y = 0; y < image.getHeight() && bitIndex < bits.length; y++) {
+			for (int x = 0; x < image.getWidth() && bitIndex < bits.length; x++) {
+				int pixel = image.getRGB(x, y);
+				int alpha = (pixel >> 24) & 0xFF;
+				int red = (pixel >> 16) & 0xFF;
+				int green = (pixel >> 8) & 0xFF;
+				int blue = pixel & 0xFF;
+
+				if (bitIndex < bits.length) red = (red & 0xFE) | (bits[bitIndex++] ? 1 : 0);
+				if (bitIndex < bits.length) green = (green & 0xFE) | (bits[bitIndex++] ? 1 : 0);
+				if (bitIndex < bits.length) blue = (blue & 0xFE) | (bits[bitIndex++] ? 1 : 0);
+
+				image.setRGB(x, y, (alpha << 24) | (red << 16) | (green << 8) | blue);
+			}
+		}
+		return image;
+	}
+
+	static void assertSamePixels(BufferedImage expected, BufferedImage actual, String message) {
+		assertEquals(expected.getWidth(), actual.getWidth(), message);
+		assertEquals(expected.getHeight(), actual.getHeight(), message);
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				int expectedPixel = expected.getRGB(x, y);
+				int actualPixel = actual.getRGB(x, y);
+				if (expectedPixel != actualPixel) {
+					assertEquals(Integer.toHexString(expectedPixel), Integer.toHexString(actualPixel),
+							message + " at (" + x + ", " + y + ")");
+				}
+			}
+		}
+	}
+}
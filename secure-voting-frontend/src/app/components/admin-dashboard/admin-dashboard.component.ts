@@ -71,6 +71,10 @@ export class AdminDashboardComponent implements OnInit, AfterViewInit {
   totalBlocks = 0;
   totalVotes = 0;
   latestBlock: Block | null = null;
+  voteCountsByElection: { [electionId: number]: number } = {};
+  // Cursor of the next block page, null once the last page is loaded
+  nextBlocksAfterHeight: number | null = null;
+  isLoadingMoreBlocks = false;
 
   // Modal properties
   showElectionModal = false;
@@ -519,16 +523,12 @@ export class AdminDashboardComponent implements OnInit, AfterViewInit {
   loadBlocks(): void {
     console.log('Loading blocks...');
     this.isLoading = true;
-    this.dataService.getAllBlocks().subscribe({
-      next: (blocks) => {
-        console.log('Blocks loaded successfully:', blocks);
-        this.blocks = blocks;
-        this.totalBlocks = blocks.length;
-        this.latestBlock = blocks.length > 0 ? blocks[blocks.length - 1] : null;
-        this.totalVotes = blocks.length; // Assuming each block represents a vote
+    // Only the first page is fetched; the counts and the tip come from their own endpoints
+    this.dataService.getBlocks().subscribe({
+      next: (page) => {
+        this.blocks = page.blocks;
+        this.nextBlocksAfterHeight = page.nextAfterHeight;
         this.isLoading = false;
-        console.log('Total blocks:', this.totalBlocks);
-        console.log('Latest block:', this.latestBlock);
       },
       error: (error) => {
         console.error('Error loading blocks:', error);
@@ -537,6 +537,40 @@ export class AdminDashboardComponent implements OnInit, AfterViewInit {
         this.isLoading = false;
       }
     });
+    this.dataService.getTotalBlockCount().subscribe({
+      next: (count) => this.totalBlocks = count,
+      error: (error) => console.error('Error loading block count:', error)
+    });
+    this.dataService.getLatestBlock().subscribe({
+      next: (block) => this.latestBlock = block,
+      error: (error) => console.error('Error loading latest block:', error)
+    });
+    this.dataService.getVoteCountsByElection().subscribe({
+      next: (counts) => {
+        this.voteCountsByElection = counts;
+        this.totalVotes = Object.values(counts).reduce((total, count) => total + count, 0);
+      },
+      error: (error) => console.error('Error loading vote counts:', error)
+    });
+  }
+
+  loadMoreBlocks(): void {
+    if (this.nextBlocksAfterHeight === null || this.isLoadingMoreBlocks) {
+      return;
+    }
+    this.isLoadingMoreBlocks = true;
+    this.dataService.getBlocks(this.nextBlocksAfterHeight).subscribe({
+      next: (page) => {
+        this.blocks = this.blocks.concat(page.blocks);
+        this.nextBlocksAfterHeight = page.nextAfterHeight;
+        this.isLoadingMoreBlocks = false;
+      },
+      error: (error) => {
+        console.error('Error loading more blocks:', error);
+        this.error = 'Failed to load blockchain data';
+        this.isLoadingMoreBlocks = false;
+      }
+    });
   }
 
   loadRecentActivities(): void {
@@ -569,7 +603,7 @@ export class AdminDashboardComponent implements OnInit, AfterViewInit {
   }
 
   getVoteCountForElection(electionId: number): number {
-    return this.blocks.filter(block => block.electionId === electionId).length;
+    return this.voteCountsByElection[electionId] ?? 0;
   }
 
   getBlockchainIntegrity(): number {
@@ -1,12 +1,15 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpHeaders } from '@angular/common/http';
 import { Observable, throwError } from 'rxjs';
-import { catchError } from 'rxjs/operators';
+import { catchError, map } from 'rxjs/operators';
 import { environment } from '../../environments/environment';
 import { AuthService } from './auth.service';
 
 const API_URL = environment.apiUrl;
 
+// Cursor of the next page of a block listing; absent on the last page
+const NEXT_CURSOR_HEADER = 'X-Next-After-Height';
+
 export interface Candidate {
   candidateId: number;
   name: string;
@@ -112,6 +115,12 @@ export interface Block {
   nonce: number;
 }
 
+// One page of a block listing; nextAfterHeight is null on the last page
+export interface BlockPage {
+  blocks: Block[];
+  nextAfterHeight: number | null;
+}
+
 export interface User {
   voterId: string;
   username?: string; // Keep for backward compatibility
@@ -233,8 +242,8 @@ export class DataService {
     return this.http.get(API_URL + '/admin/users', { headers: this.getAuthHeaders() });
   }
 
-  getBlockchain(): Observable<any> {
-    return this.http.get(API_URL + '/admin/blockchain', { headers: this.getAuthHeaders() });
+  getBlockchain(afterHeight = -1): Observable<BlockPage> {
+    return this.getBlockPage(API_URL + '/admin/blockchain', afterHeight);
   }
 
   tallyVotes(): Observable<any> {
@@ -316,12 +325,26 @@ export class DataService {
 
   // --- Blockchain API Methods ---
   
-  getAllBlocks(): Observable<Block[]> {
-    return this.http.get<Block[]>(`${API_URL}/blocks`, { headers: this.getAuthHeaders() }).pipe(
+  getBlocks(afterHeight = -1): Observable<BlockPage> {
+    return this.getBlockPage(`${API_URL}/blocks`, afterHeight).pipe(
       catchError(this.handleError)
     );
   }
 
+  // Block listings are paged: one request per page, the cursor header gives the next page
+  private getBlockPage(url: string, afterHeight: number): Observable<BlockPage> {
+    return this.http.get<Block[]>(url, {
+      headers: this.getAuthHeaders(),
+      params: { afterHeight, includeStego: false },
+      observe: 'response'
+    }).pipe(
+      map(response => {
+        const next = response.headers.get(NEXT_CURSOR_HEADER);
+        return { blocks: response.body ?? [], nextAfterHeight: next !== null ? Number(next) : null };
+      })
+    );
+  }
+
   getLatestBlock(): Observable<Block> {
     return this.http.get<Block>(`${API_URL}/blocks/latest`, { headers: this.getAuthHeaders() }).pipe(
       catchError(this.handleError)
@@ -335,7 +358,8 @@ export class DataService {
   }
 
   getBlocksByElection(electionId: number): Observable<Block[]> {
-    return this.http.get<Block[]>(`${API_URL}/blocks/election/${electionId}`, { headers: this.getAuthHeaders() }).pipe(
+    // Stego images are not shown, so leave them out of the response
+    return this.http.get<Block[]>(`${API_URL}/blocks/election/${electionId}?includeStego=false`, { headers: this.getAuthHeaders() }).pipe(
       catchError(this.handleError)
     );
   }
@@ -370,6 +394,13 @@ export class DataService {
     );
   }
 
+  // Votes per election id; multi-vote blocks count every vote they hold
+  getVoteCountsByElection(): Observable<{ [electionId: number]: number }> {
+    return this.http.get<{ [electionId: number]: number }>(`${API_URL}/blocks/vote-counts`, { headers: this.getAuthHeaders() }).pipe(
+      catchError(this.handleError)
+    );
+  }
+
   getBlockCountByElection(electionId: number): Observable<number> {
     return this.http.get<number>(`${API_URL}/blocks/election/${electionId}/count`, { headers: this.getAuthHeaders() }).pipe(
       catchError(this.handleError)